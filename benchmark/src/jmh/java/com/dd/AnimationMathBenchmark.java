@@ -0,0 +1,52 @@
+package com.dd;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class AnimationMathBenchmark {
+
+    private float mGlobalAngle = 123.4f;
+    private float mGlobalAngleOffset = 60f;
+    private float mSweepAngle = 210.5f;
+    private boolean mAppearing = true;
+
+    private long mFrameTime = 12345L;
+    private float mProgressFraction = 0.42f;
+
+    private float mFraction = 0.37f;
+    private int mFromColor = 0xff0099cc;
+    private int mToColor = 0xff99cc00;
+
+    @Benchmark
+    public float spinnerFrame() {
+        long time = mFrameTime++;
+        float globalAngle = AnimationMath.getSpinnerGlobalAngle(time);
+        float sweepAngle = AnimationMath.getSpinnerSweepProgress(time);
+        boolean appearing = AnimationMath.isSpinnerAppearing(time);
+        float globalAngleOffset = AnimationMath.getSpinnerGlobalAngleOffset(time);
+        return AnimationMath.getSpinnerStartAngle(globalAngle, globalAngleOffset, sweepAngle, appearing)
+                + AnimationMath.getSpinnerSweepAngle(sweepAngle, appearing);
+    }
+
+    @Benchmark
+    public float spinnerStartAngle() {
+        return AnimationMath.getSpinnerStartAngle(mGlobalAngle, mGlobalAngleOffset, mSweepAngle, mAppearing);
+    }
+
+    @Benchmark
+    public float spinnerSweepAngle() {
+        return AnimationMath.getSpinnerSweepAngle(mSweepAngle, mAppearing);
+    }
+
+    @Benchmark
+    public float progressSweepAngle() {
+        return AnimationMath.getProgressSweepAngle(mProgressFraction);
+    }
+
+    @Benchmark
+    public int evaluateColor() {
+        return AnimationMath.evaluateColor(mFraction, mFromColor, mToColor);
+    }
+}
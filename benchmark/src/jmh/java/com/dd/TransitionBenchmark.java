@@ -0,0 +1,33 @@
+package com.dd;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class TransitionBenchmark {
+
+    private static final int[] PROGRESS = new int[]{
+            Transition.IDLE_STATE_PROGRESS,
+            Transition.INDETERMINATE_STATE_PROGRESS,
+            Transition.SUCCESS_STATE_PROGRESS,
+            Transition.ERROR_STATE_PROGRESS,
+            1,
+            99
+    };
+
+    private int mIndex;
+    private int mState = Transition.STATE_IDLE;
+
+    @Benchmark
+    public int transition() {
+        int progress = PROGRESS[mIndex];
+        mIndex = (mIndex + 1) % PROGRESS.length;
+
+        int transition = Transition.get(mState, progress);
+        if (transition != Transition.NONE) {
+            mState = Transition.getToState(transition);
+        }
+        return transition;
+    }
+}
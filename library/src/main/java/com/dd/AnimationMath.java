@@ -0,0 +1,87 @@
+package com.dd;
+
+/**
+ * Per-frame math shared by the drawables and the morph. Kept free of Android types so that it can be
+ * benchmarked on a plain JVM.
+ */
+final class AnimationMath {
+
+    static final int MIN_SWEEP_ANGLE = 30;
+    static final int SPINNER_ANGLE_DURATION = 2000;
+    static final int SPINNER_SWEEP_DURATION = 600;
+
+    private AnimationMath() {
+    }
+
+    static float getProgressSweepAngle(float fraction) {
+        return 360f * fraction;
+    }
+
+    /**
+     * @return the progress value for a fraction of work done; anything short of done maps into the progress state
+     */
+    static int getProgress(float fraction) {
+        if (fraction >= 1f) {
+            return Transition.SUCCESS_STATE_PROGRESS;
+        }
+        int progress = (int) (fraction * Transition.SUCCESS_STATE_PROGRESS);
+        return Math.max(Transition.IDLE_STATE_PROGRESS + 1, Math.min(Transition.SUCCESS_STATE_PROGRESS - 1, progress));
+    }
+
+    /**
+     * @return rotation of the spinner at {@code time} milliseconds into its animation, turning linearly
+     */
+    static float getSpinnerGlobalAngle(long time) {
+        return 360f * (time % SPINNER_ANGLE_DURATION) / SPINNER_ANGLE_DURATION;
+    }
+
+    /**
+     * @return how far the arc has grown or shrunk in the current sweep cycle, decelerating towards its end
+     */
+    static float getSpinnerSweepProgress(long time) {
+        float fraction = (time % SPINNER_SWEEP_DURATION) / (float) SPINNER_SWEEP_DURATION;
+        return (360f - MIN_SWEEP_ANGLE * 2) * (1f - (1f - fraction) * (1f - fraction));
+    }
+
+    static boolean isSpinnerAppearing(long time) {
+        return time / SPINNER_SWEEP_DURATION % 2 == 1;
+    }
+
+    /**
+     * @return offset that keeps the tail of the arc in place while it grows, after each full sweep cycle
+     */
+    static float getSpinnerGlobalAngleOffset(long time) {
+        long sweepCycle = time / SPINNER_SWEEP_DURATION;
+        return ((sweepCycle + 1) / 2 * MIN_SWEEP_ANGLE * 2) % 360;
+    }
+
+    static float getSpinnerStartAngle(float globalAngle, float globalAngleOffset, float sweepAngle,
+            boolean appearing) {
+        float startAngle = globalAngle - globalAngleOffset;
+        return appearing ? startAngle : startAngle + sweepAngle;
+    }
+
+    static float getSpinnerSweepAngle(float sweepAngle, boolean appearing) {
+        return appearing ? sweepAngle + MIN_SWEEP_ANGLE : 360 - sweepAngle - MIN_SWEEP_ANGLE;
+    }
+
+    /**
+     * Same result as {@link android.animation.ArgbEvaluator}, without boxing.
+     */
+    static int evaluateColor(float fraction, int startValue, int endValue) {
+        int startA = (startValue >> 24) & 0xff;
+        int startR = (startValue >> 16) & 0xff;
+        int startG = (startValue >> 8) & 0xff;
+        int startB = startValue & 0xff;
+
+        int endA = (endValue >> 24) & 0xff;
+        int endR = (endValue >> 16) & 0xff;
+        int endG = (endValue >> 8) & 0xff;
+        int endB = endValue & 0xff;
+
+        return (startA + (int) (fraction * (endA - startA))) << 24
+                | (startR + (int) (fraction * (endR - startR))) << 16
+                | (startG + (int) (fraction * (endG - startG))) << 8
+                | (startB + (int) (fraction * (endB - startB)));
+    }
+}
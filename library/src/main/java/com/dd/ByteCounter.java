@@ -0,0 +1,52 @@
+package com.dd;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte count of a transfer with a known length, written by one I/O thread and read by the UI thread. The counting
+ * streams and channels add to it without locking or allocating, and {@link CircularProgressButton#setProgressSource}
+ * reads it once per frame.
+ */
+public final class ByteCounter {
+
+    private final AtomicLong mCount = new AtomicLong();
+    private final long mTotalBytes;
+    private volatile boolean mFailed;
+
+    public ByteCounter(long totalBytes) {
+        mTotalBytes = totalBytes;
+    }
+
+    /**
+     * Must only be called from a single thread at a time, normally the one doing the I/O.
+     */
+    public void add(long bytes) {
+        if (bytes > 0) {
+            mCount.lazySet(mCount.get() + bytes);
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    public boolean isDone() {
+        return mCount.get() >= mTotalBytes;
+    }
+
+    /**
+     * Marks the transfer as failed, which stops a button reading this counter and shows its error state. May be
+     * called from any thread.
+     */
+    public void fail() {
+        mFailed = true;
+    }
+
+    public boolean isFailed() {
+        return mFailed;
+    }
+}
@@ -0,0 +1,104 @@
+package com.dd;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Default {@link FrameClock}, driven by {@link Choreographer} on Jelly Bean and later and by a handler on a fixed
+ * delay before.
+ */
+final class ChoreographerFrameClock extends FrameClock {
+
+    private static final long FRAME_DELAY = 10;
+
+    private final FrameCallbackList mCallbacks = new FrameCallbackList();
+    private Object mFrameCallback;
+    private Handler mHandler;
+    private Runnable mFrameRunnable;
+    private boolean mFrameScheduled;
+    private long mScheduledTime;
+
+    @Override
+    public long now() {
+        return AnimationUtils.currentAnimationTimeMillis();
+    }
+
+    @Override
+    public void postFrameCallback(Callback callback) {
+        mCallbacks.add(callback);
+        scheduleFrame();
+    }
+
+    @Override
+    public void postFrameCallbackDelayed(Callback callback, long delayMillis) {
+        mCallbacks.add(callback, now() + delayMillis);
+        scheduleFrame();
+    }
+
+    @Override
+    public void removeFrameCallback(Callback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    /**
+     * At most one platform frame callback is pending, however many callbacks are posted before it runs. It is
+     * moved to an earlier frame when a callback becomes due before it.
+     */
+    private void scheduleFrame() {
+        long dueTime = mCallbacks.getNextDueTime();
+        if (dueTime == Long.MAX_VALUE || mFrameScheduled && mScheduledTime <= dueTime) {
+            return;
+        }
+        long delay = getFrameDelay(dueTime, now());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            scheduleChoreographerFrame(delay);
+        } else {
+            if (mHandler == null) {
+                mHandler = new Handler(Looper.getMainLooper());
+                mFrameRunnable = new Runnable() {
+                    @Override
+                    public void run() {
+                        dispatchFrame(now());
+                    }
+                };
+            }
+            mHandler.removeCallbacks(mFrameRunnable);
+            mHandler.postDelayed(mFrameRunnable, Math.max(FRAME_DELAY, delay));
+        }
+        mFrameScheduled = true;
+        mScheduledTime = dueTime;
+    }
+
+    /**
+     * Callbacks posted without a delay are due at {@link Long#MIN_VALUE}, which must not be subtracted from.
+     */
+    static long getFrameDelay(long dueTime, long now) {
+        return dueTime <= now ? 0 : dueTime - now;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void scheduleChoreographerFrame(long delay) {
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    dispatchFrame(frameTimeNanos / 1000000);
+                }
+            };
+        }
+        Choreographer choreographer = Choreographer.getInstance();
+        Choreographer.FrameCallback frameCallback = (Choreographer.FrameCallback) mFrameCallback;
+        choreographer.removeFrameCallback(frameCallback);
+        choreographer.postFrameCallbackDelayed(frameCallback, delay);
+    }
+
+    private void dispatchFrame(long frameTime) {
+        mFrameScheduled = false;
+        mCallbacks.dispatch(frameTime);
+        scheduleFrame();
+    }
+}
@@ -1,8 +1,5 @@
 package com.dd;
 
-import android.animation.Animator;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
@@ -11,22 +8,32 @@ import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
-import android.util.Property;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Interpolator;
-import android.view.animation.LinearInterpolator;
 
 class CircularAnimatedDrawable extends Drawable implements Animatable {
 
-    private static final Interpolator ANGLE_INTERPOLATOR = new LinearInterpolator();
-    private static final Interpolator SWEEP_INTERPOLATOR = new DecelerateInterpolator();
-    private static final int ANGLE_ANIMATOR_DURATION = 2000;
-    private static final int SWEEP_ANIMATOR_DURATION = 600;
-    public static final int MIN_SWEEP_ANGLE = 30;
+    public static final int MIN_SWEEP_ANGLE = AnimationMath.MIN_SWEEP_ANGLE;
     private final RectF fBounds = new RectF();
 
-    private ObjectAnimator mObjectAnimatorSweep;
-    private ObjectAnimator mObjectAnimatorAngle;
+    private final FrameClock mClock;
+    private final FrameClock.Callback mFrameCallback = new FrameClock.Callback() {
+        @Override
+        public void doFrame(long frameTime) {
+            if (!mRunning) {
+                return;
+            }
+            if (mStartTime < 0) {
+                mStartTime = frameTime;
+            }
+            setFrameTime(frameTime - mStartTime);
+            invalidateSelf();
+            if (mMinFrameInterval > 0) {
+                mClock.postFrameCallbackDelayed(this, mMinFrameInterval);
+            } else {
+                mClock.postFrameCallback(this);
+            }
+        }
+    };
+    private long mStartTime;
     private boolean mModeAppearing;
     private Paint mPaint;
     private float mCurrentGlobalAngleOffset;
@@ -34,40 +41,59 @@ class CircularAnimatedDrawable extends Drawable implements Animatable {
     private float mCurrentSweepAngle;
     private float mBorderWidth;
     private boolean mRunning;
+    private boolean mSynchronized;
+    private boolean mAtlasEnabled;
+    private SpinnerAtlas mAtlas;
+    private SpinnerAtlas.Key mAtlasKey;
+    private Paint mAtlasPaint;
+    private long mMinFrameInterval;
+    private long mLastFrameTime;
+    private boolean mStatic;
 
     public CircularAnimatedDrawable(int color, float borderWidth) {
+        this(color, borderWidth, FrameClock.getDefault());
+    }
+
+    public CircularAnimatedDrawable(int color, float borderWidth, FrameClock clock) {
         mBorderWidth = borderWidth;
+        mClock = clock;
 
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
         mPaint.setStyle(Paint.Style.STROKE);
         mPaint.setStrokeWidth(borderWidth);
         mPaint.setColor(color);
-
-        setupAnimations();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        float startAngle = mCurrentGlobalAngle - mCurrentGlobalAngleOffset;
-        float sweepAngle = mCurrentSweepAngle;
-        if (!mModeAppearing) {
-            startAngle = startAngle + sweepAngle;
-            sweepAngle = 360 - sweepAngle - MIN_SWEEP_ANGLE;
+        float startAngle = AnimationMath.getSpinnerStartAngle(mCurrentGlobalAngle, mCurrentGlobalAngleOffset,
+                mCurrentSweepAngle, mModeAppearing);
+        float sweepAngle = AnimationMath.getSpinnerSweepAngle(mCurrentSweepAngle, mModeAppearing);
+        if (mAtlasEnabled && mAtlas == null) {
+            mAtlas = SpinnerAtlas.obtain(mAtlasKey);
+        }
+        if (mAtlas != null) {
+            mAtlas.draw(canvas, getBounds(), startAngle, sweepAngle, mAtlasPaint);
         } else {
-            sweepAngle += MIN_SWEEP_ANGLE;
+            canvas.drawArc(fBounds, startAngle, sweepAngle, false, mPaint);
         }
-        canvas.drawArc(fBounds, startAngle, sweepAngle, false, mPaint);
     }
 
     @Override
     public void setAlpha(int alpha) {
         mPaint.setAlpha(alpha);
+        if (mAtlasPaint != null) {
+            mAtlasPaint.setAlpha(alpha);
+        }
     }
 
     @Override
     public void setColorFilter(ColorFilter cf) {
         mPaint.setColorFilter(cf);
+        if (mAtlasPaint != null) {
+            mAtlasPaint.setColorFilter(cf);
+        }
     }
 
     @Override
@@ -75,13 +101,6 @@ class CircularAnimatedDrawable extends Drawable implements Animatable {
         return PixelFormat.TRANSPARENT;
     }
 
-    private void toggleAppearingMode() {
-        mModeAppearing = !mModeAppearing;
-        if (mModeAppearing) {
-            mCurrentGlobalAngleOffset = (mCurrentGlobalAngleOffset + MIN_SWEEP_ANGLE * 2) % 360;
-        }
-    }
-
     @Override
     protected void onBoundsChange(Rect bounds) {
         super.onBoundsChange(bounds);
@@ -89,67 +108,118 @@ class CircularAnimatedDrawable extends Drawable implements Animatable {
         fBounds.right = bounds.right - mBorderWidth / 2f - .5f;
         fBounds.top = bounds.top + mBorderWidth / 2f + .5f;
         fBounds.bottom = bounds.bottom - mBorderWidth / 2f - .5f;
-    }
-
-    private Property<CircularAnimatedDrawable, Float> mAngleProperty  =
-            new Property<CircularAnimatedDrawable, Float>(Float.class, "angle") {
-        @Override
-        public Float get(CircularAnimatedDrawable object) {
-            return object.getCurrentGlobalAngle();
+        if (mAtlasKey != null) {
+            mAtlasKey.set(bounds.width(), Math.round(mBorderWidth));
+            mAtlas = null;
         }
+    }
 
-        @Override
-        public void set(CircularAnimatedDrawable object, Float value) {
-            object.setCurrentGlobalAngle(value);
+    /**
+     * When enabled, frames are drawn from a pre-rendered {@link SpinnerAtlas} instead of stroking the arc,
+     * which is cheaper on software-rendered canvases. Until the atlas is ready, and for spinners too large to
+     * have one, the arc is stroked as usual.
+     */
+    public void setAtlasEnabled(boolean enabled) {
+        if (mAtlasEnabled == enabled) {
+            return;
         }
-    };
-
-    private Property<CircularAnimatedDrawable, Float> mSweepProperty
-            = new Property<CircularAnimatedDrawable, Float>(Float.class, "arc") {
-        @Override
-        public Float get(CircularAnimatedDrawable object) {
-            return object.getCurrentSweepAngle();
+        mAtlasEnabled = enabled;
+        mAtlas = null;
+        if (enabled && mAtlasKey == null) {
+            mAtlasKey = new SpinnerAtlas.Key(getBounds().width(), Math.round(mBorderWidth));
+            mAtlasPaint = new Paint(mPaint);
+            mAtlasPaint.setStyle(Paint.Style.FILL);
+            mAtlasPaint.setFilterBitmap(true);
         }
+        invalidateSelf();
+    }
 
-        @Override
-        public void set(CircularAnimatedDrawable object, Float value) {
-            object.setCurrentSweepAngle(value);
-        }
-    };
+    public boolean isAtlasEnabled() {
+        return mAtlasEnabled;
+    }
 
-    private void setupAnimations() {
-        mObjectAnimatorAngle = ObjectAnimator.ofFloat(this, mAngleProperty, 360f);
-        mObjectAnimatorAngle.setInterpolator(ANGLE_INTERPOLATOR);
-        mObjectAnimatorAngle.setDuration(ANGLE_ANIMATOR_DURATION);
-        mObjectAnimatorAngle.setRepeatMode(ValueAnimator.RESTART);
-        mObjectAnimatorAngle.setRepeatCount(ValueAnimator.INFINITE);
-
-        mObjectAnimatorSweep = ObjectAnimator.ofFloat(this, mSweepProperty, 360f - MIN_SWEEP_ANGLE * 2);
-        mObjectAnimatorSweep.setInterpolator(SWEEP_INTERPOLATOR);
-        mObjectAnimatorSweep.setDuration(SWEEP_ANIMATOR_DURATION);
-        mObjectAnimatorSweep.setRepeatMode(ValueAnimator.RESTART);
-        mObjectAnimatorSweep.setRepeatCount(ValueAnimator.INFINITE);
-        mObjectAnimatorSweep.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
+    /**
+     * Derive angle and sweep from an animation time: the time since start when running on its own, or the
+     * absolute frame time when driven by {@link SpinnerClock} so that all drawables share phase.
+     */
+    void setFrameTime(long time) {
+        mCurrentGlobalAngle = AnimationMath.getSpinnerGlobalAngle(time);
+        mCurrentSweepAngle = AnimationMath.getSpinnerSweepProgress(time);
+        mModeAppearing = AnimationMath.isSpinnerAppearing(time);
+        mCurrentGlobalAngleOffset = AnimationMath.getSpinnerGlobalAngleOffset(time);
+    }
 
+    /**
+     * Invalidate for a new frame of the {@link SpinnerClock}, unless the previous one was less than the minimum frame
+     * interval ago.
+     */
+    void invalidateFrame() {
+        if (mMinFrameInterval > 0) {
+            long now = mClock.now();
+            if (now - mLastFrameTime < mMinFrameInterval) {
+                return;
             }
+            mLastFrameTime = now;
+        }
+        invalidateSelf();
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
+    /**
+     * Caps the frame rate by asking for the next frame only {@code interval} milliseconds after the last one. Zero
+     * draws every frame.
+     */
+    public void setMinFrameInterval(long interval) {
+        if (mMinFrameInterval == interval) {
+            return;
+        }
+        mMinFrameInterval = interval;
+        if (mRunning && !mStatic && !mSynchronized) {
+            // a frame delayed by the old interval may be far off
+            mClock.postFrameCallback(mFrameCallback);
+        }
+    }
 
-            }
+    long getMinFrameInterval() {
+        return mMinFrameInterval;
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
+    /**
+     * When static, a fixed arc is drawn and no animation runs.
+     */
+    public void setStatic(boolean isStatic) {
+        if (mStatic == isStatic) {
+            return;
+        }
+        boolean running = isRunning();
+        stop();
+        mStatic = isStatic;
+        if (running) {
+            start();
+        }
+    }
 
-            }
+    public boolean isStatic() {
+        return mStatic;
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-                toggleAppearingMode();
-            }
-        });
+    /**
+     * When synchronized, the drawable is driven by the {@link SpinnerClock} of its frame clock instead of its own
+     * frame callback.
+     */
+    public void setSynchronized(boolean synchronize) {
+        if (mSynchronized == synchronize) {
+            return;
+        }
+        boolean running = isRunning();
+        stop();
+        mSynchronized = synchronize;
+        if (running) {
+            start();
+        }
+    }
+
+    public boolean isSynchronized() {
+        return mSynchronized;
     }
 
     @Override
@@ -158,8 +228,15 @@ class CircularAnimatedDrawable extends Drawable implements Animatable {
             return;
         }
         mRunning = true;
-        mObjectAnimatorAngle.start();
-        mObjectAnimatorSweep.start();
+        if (mStatic) {
+            mCurrentSweepAngle = 0;
+            mModeAppearing = false;
+        } else if (mSynchronized) {
+            mClock.getSpinnerClock().register(this);
+        } else {
+            mStartTime = -1;
+            mClock.postFrameCallback(mFrameCallback);
+        }
         invalidateSelf();
     }
 
@@ -169,8 +246,13 @@ class CircularAnimatedDrawable extends Drawable implements Animatable {
             return;
         }
         mRunning = false;
-        mObjectAnimatorAngle.cancel();
-        mObjectAnimatorSweep.cancel();
+        if (!mStatic) {
+            if (mSynchronized) {
+                mClock.getSpinnerClock().unregister(this);
+            } else {
+                mClock.removeFrameCallback(mFrameCallback);
+            }
+        }
         invalidateSelf();
     }
 
@@ -179,20 +261,10 @@ class CircularAnimatedDrawable extends Drawable implements Animatable {
         return mRunning;
     }
 
-    public void setCurrentGlobalAngle(float currentGlobalAngle) {
-        mCurrentGlobalAngle = currentGlobalAngle;
-        invalidateSelf();
-    }
-
     public float getCurrentGlobalAngle() {
         return mCurrentGlobalAngle;
     }
 
-    public void setCurrentSweepAngle(float currentSweepAngle) {
-        mCurrentSweepAngle = currentSweepAngle;
-        invalidateSelf();
-    }
-
     public float getCurrentSweepAngle() {
         return mCurrentSweepAngle;
     }
@@ -5,8 +5,11 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Rect;
+import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.graphics.drawable.StateListDrawable;
@@ -15,15 +18,49 @@ import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.util.StateSet;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
 import android.widget.Button;
 
 import com.dd.circular.progress.button.R;
 
 public class CircularProgressButton extends Button {
-    public static final int IDLE_STATE_PROGRESS = 0;
-    public static final int ERROR_STATE_PROGRESS = -1;
-    public static final int SUCCESS_STATE_PROGRESS = 100;
-    public static final int INDETERMINATE_STATE_PROGRESS = 50;
+    public static final int IDLE_STATE_PROGRESS = Transition.IDLE_STATE_PROGRESS;
+    public static final int ERROR_STATE_PROGRESS = Transition.ERROR_STATE_PROGRESS;
+    public static final int SUCCESS_STATE_PROGRESS = Transition.SUCCESS_STATE_PROGRESS;
+    public static final int INDETERMINATE_STATE_PROGRESS = Transition.INDETERMINATE_STATE_PROGRESS;
+
+    /**
+     * Power saver policies, see {@link #setPowerSaverPolicy(int)}.
+     */
+    public static final int POWER_SAVER_IGNORE = 0;
+    public static final int POWER_SAVER_REDUCE_FRAME_RATE = 1;
+    public static final int POWER_SAVER_STATIC = 2;
+
+    /**
+     * Frame rate used by {@link #POWER_SAVER_REDUCE_FRAME_RATE} while battery saver is on.
+     */
+    public static final int POWER_SAVER_FRAME_RATE = 20;
+
+    private static final int USE_DEFAULT = -1;
+
+    /**
+     * A progress source whose count did not change for this long is read at {@link #PROGRESS_SOURCE_STALL_INTERVAL}
+     * instead of every frame, until it moves again.
+     */
+    private static final long PROGRESS_SOURCE_STALL_TIMEOUT = 1000;
+    private static final long PROGRESS_SOURCE_STALL_INTERVAL = 250;
+
+    private static int sDefaultMaxFrameRate;
+    private static int sDefaultPowerSaverPolicy = POWER_SAVER_REDUCE_FRAME_RATE;
+
+    private static final int[] STATE_ENABLED = new int[]{android.R.attr.state_enabled};
+    private static final int[] STATE_PRESSED = new int[]{android.R.attr.state_pressed};
+    private static final int[] STATE_FOCUSED = new int[]{android.R.attr.state_focused};
+    private static final int[] STATE_DISABLED = new int[]{-android.R.attr.state_enabled};
 
     private StrokeGradientDrawable background;
 
@@ -34,16 +71,23 @@ public class CircularProgressButton extends Button {
     private ColorStateList mCompleteColorState;
     private ColorStateList mErrorColorState;
 
+    private int mIdleStateSelector = R.color.cpb_idle_state_selector;
+    private int mCompleteStateSelector = R.color.cpb_complete_state_selector;
+    private int mErrorStateSelector = R.color.cpb_error_state_selector;
+
     private StateListDrawable mIdleStateDrawable;
     private StateListDrawable mCompleteStateDrawable;
     private StateListDrawable mErrorStateDrawable;
 
+    private MorphingAnimation mMorphingAnimation;
+    private SnapshotCache mSnapshotCache;
     private StateManager mStateManager;
+    private ProgressSink mProgressSink;
     private State mState;
-    private String mIdleText;
-    private String mCompleteText;
-    private String mErrorText;
-    private String mProgressText;
+    private final StateLabel mIdleLabel = new StateLabel(null, 0);
+    private final StateLabel mCompleteLabel = new StateLabel(null, 0);
+    private final StateLabel mErrorLabel = new StateLabel(null, 0);
+    private final StateLabel mProgressLabel = new StateLabel(null, 0);
 
     private int mColorProgress;
     private int mColorIndicator;
@@ -53,15 +97,14 @@ public class CircularProgressButton extends Button {
     private int mStrokeColor;
     private int mIdleStrokeWidth;
 
-    private int mIconIdle;
-    private int mIconComplete;
-    private int mIconError;
-
     private int mStrokeWidth;
     private int mPaddingProgress;
     private float mCornerRadius;
     private boolean mIndeterminateProgressMode;
+    private boolean mIndeterminateProgressSynchronized;
+    private boolean mIndeterminateProgressAtlasEnabled;
     private boolean mConfigurationChanged;
+    private boolean mMorphCacheEnabled;
 
     private long mDelay;
     private int mDuration;
@@ -70,13 +113,43 @@ public class CircularProgressButton extends Button {
     private int mLeftPadding;
     private int mRightPadding;
 
+    /**
+     * The order of the states must match the {@code STATE_} constants of {@link Transition}.
+     */
     public enum State {
         PROGRESS, IDLE, COMPLETE, ERROR
     }
 
+    private static final State[] STATES = State.values();
+
     private int mProgress;
+    private float mProgressFraction;
+    private ProgressSmoother mProgressSmoother;
+    private ByteCounter mProgressSource;
+    private final Rect mVisibleRect = new Rect();
+    private ViewTreeObserver mScrollObserver;
+    private AccessibilityManager mAccessibilityManager;
+
+    private int mMaxFrameRate = USE_DEFAULT;
+    private int mPowerSaverPolicy = USE_DEFAULT;
+    private long mFrameInterval;
+    private float mAnimatorDurationScale = 1f;
+    private long mRefreshIntervalNanos = DisplayCompat.DEFAULT_REFRESH_INTERVAL_NANOS;
+    private boolean mStaticIndicator;
+
+    private FrameClock mFrameClock;
+    private long mProgressSourceCount = -1;
+    private long mProgressSourceChangeTime;
 
     private boolean mMorphingInProgress;
+    private State mMorphTarget;
+    private long mMorphStartTime;
+
+    private ProgressButtonMetrics mMetrics;
+
+    private TransitionTrace mTrace;
+    private long mMorphTraceSequence = -1;
+    private boolean mReplayingProgress;
 
     public CircularProgressButton(Context context) {
         super(context);
@@ -104,7 +177,8 @@ public class CircularProgressButton extends Button {
         mState = State.IDLE;
         mStateManager = new StateManager(this);
 
-        setText(mIdleText);
+        // the view holds the idle text; the labels of the other states are drawn by drawLabels
+        setText(mIdleLabel.getText());
 
         initIdleStateDrawable();
         setBackgroundCompat(mIdleStateDrawable);
@@ -116,97 +190,102 @@ public class CircularProgressButton extends Button {
     }
 
     private void initErrorStateDrawable() {
-        int colorPressed = getPressedColor(mErrorColorState);
+        if (mErrorStateDrawable != null) {
+            return;
+        }
 
-        StrokeGradientDrawable drawablePressed = createDrawable(colorPressed);
+        int colorPressed = getPressedColor(getErrorColorState());
+
+        GradientDrawable drawablePressed = obtainDrawable(colorPressed, colorPressed, mStrokeWidth);
         mErrorStateDrawable = new StateListDrawable();
 
-        mErrorStateDrawable.addState(new int[]{android.R.attr.state_pressed}, drawablePressed.getGradientDrawable());
+        mErrorStateDrawable.addState(STATE_PRESSED, drawablePressed);
         mErrorStateDrawable.addState(StateSet.WILD_CARD, background.getGradientDrawable());
     }
 
     private void initCompleteStateDrawable() {
-        int colorPressed = getPressedColor(mCompleteColorState);
-
-        StrokeGradientDrawable drawablePressed = createDrawable(colorPressed);
         if (mStrokeColor != Color.TRANSPARENT) {
-            drawablePressed.setStrokeColor(mStrokeColor);
             background.setStrokeColor(mStrokeColor);
         }
-        if (mIdleStrokeWidth != Color.TRANSPARENT) {
-            drawablePressed.setStrokeWidth(mIdleStrokeWidth);
+
+        if (mCompleteStateDrawable != null) {
+            return;
         }
+
+        int colorPressed = getPressedColor(getCompleteColorState());
+        int strokeColor = mStrokeColor != Color.TRANSPARENT ? mStrokeColor : colorPressed;
+        int strokeWidth = mIdleStrokeWidth != Color.TRANSPARENT ? mIdleStrokeWidth : mStrokeWidth;
+
+        GradientDrawable drawablePressed = obtainDrawable(colorPressed, strokeColor, strokeWidth);
         mCompleteStateDrawable = new StateListDrawable();
 
-        mCompleteStateDrawable.addState(new int[]{android.R.attr.state_pressed}, drawablePressed.getGradientDrawable());
+        mCompleteStateDrawable.addState(STATE_PRESSED, drawablePressed);
         mCompleteStateDrawable.addState(StateSet.WILD_CARD, background.getGradientDrawable());
     }
 
     private void initIdleStateDrawable() {
-        int colorNormal = getNormalColor(mIdleColorState);
-        int colorPressed = getPressedColor(mIdleColorState);
-        int colorFocused = getFocusedColor(mIdleColorState);
-        int colorDisabled = getDisabledColor(mIdleColorState);
-
         if (background == null) {
-            background = createDrawable(colorNormal);
-        }
-
-        StrokeGradientDrawable drawableDisabled = createDrawable(colorDisabled);
-        StrokeGradientDrawable drawableFocused = createDrawable(colorFocused);
-        StrokeGradientDrawable drawablePressed = createDrawable(colorPressed);
-        if (mDisabledStrokeColor != Color.TRANSPARENT) {
-            drawableDisabled.setStrokeColor(mDisabledStrokeColor);
-        }
-        if (mDisabledStrokeWidth != Color.TRANSPARENT) {
-            drawableDisabled.setStrokeWidth(mDisabledStrokeWidth);
+            background = createDrawable(getNormalColor(getIdleColorState()));
         }
 
         if (mStrokeColor != Color.TRANSPARENT) {
-            drawableFocused.setStrokeColor(mStrokeColor);
-            drawablePressed.setStrokeColor(mStrokeColor);
             background.setStrokeColor(mStrokeColor);
         }
         if (mIdleStrokeWidth != Color.TRANSPARENT) {
-            drawableFocused.setStrokeWidth(mIdleStrokeWidth);
-            drawablePressed.setStrokeWidth(mIdleStrokeWidth);
             background.setStrokeWidth(mIdleStrokeWidth);
         }
 
+        if (mIdleStateDrawable != null) {
+            return;
+        }
+
+        int colorPressed = getPressedColor(getIdleColorState());
+        int colorFocused = getFocusedColor(getIdleColorState());
+        int colorDisabled = getDisabledColor(getIdleColorState());
+
+        int strokeWidth = mIdleStrokeWidth != Color.TRANSPARENT ? mIdleStrokeWidth : mStrokeWidth;
+        int disabledStrokeColor = mDisabledStrokeColor != Color.TRANSPARENT ? mDisabledStrokeColor : colorDisabled;
+        int disabledStrokeWidth = mDisabledStrokeWidth != Color.TRANSPARENT ? mDisabledStrokeWidth : mStrokeWidth;
+
+        GradientDrawable drawableDisabled = obtainDrawable(colorDisabled, disabledStrokeColor, disabledStrokeWidth);
+        GradientDrawable drawableFocused = obtainDrawable(colorFocused,
+                mStrokeColor != Color.TRANSPARENT ? mStrokeColor : colorFocused, strokeWidth);
+        GradientDrawable drawablePressed = obtainDrawable(colorPressed,
+                mStrokeColor != Color.TRANSPARENT ? mStrokeColor : colorPressed, strokeWidth);
+
         mIdleStateDrawable = new StateListDrawable();
 
-        mIdleStateDrawable.addState(new int[]{android.R.attr.state_pressed}, drawablePressed.getGradientDrawable());
-        mIdleStateDrawable.addState(new int[]{android.R.attr.state_focused}, drawableFocused.getGradientDrawable());
-        mIdleStateDrawable.addState(new int[]{-android.R.attr.state_enabled}, drawableDisabled.getGradientDrawable());
+        mIdleStateDrawable.addState(STATE_PRESSED, drawablePressed);
+        mIdleStateDrawable.addState(STATE_FOCUSED, drawableFocused);
+        mIdleStateDrawable.addState(STATE_DISABLED, drawableDisabled);
         mIdleStateDrawable.addState(StateSet.WILD_CARD, background.getGradientDrawable());
     }
 
     private int getNormalColor(ColorStateList colorStateList) {
-        return colorStateList.getColorForState(new int[]{android.R.attr.state_enabled}, 0);
+        return colorStateList.getColorForState(STATE_ENABLED, 0);
     }
 
     private int getPressedColor(ColorStateList colorStateList) {
-        return colorStateList.getColorForState(new int[]{android.R.attr.state_pressed}, 0);
+        return colorStateList.getColorForState(STATE_PRESSED, 0);
     }
 
     private int getFocusedColor(ColorStateList colorStateList) {
-        return colorStateList.getColorForState(new int[]{android.R.attr.state_focused}, 0);
+        return colorStateList.getColorForState(STATE_FOCUSED, 0);
     }
 
     private int getDisabledColor(ColorStateList colorStateList) {
-        return colorStateList.getColorForState(new int[]{-android.R.attr.state_enabled}, 0);
+        return colorStateList.getColorForState(STATE_DISABLED, 0);
     }
 
     private StrokeGradientDrawable createDrawable(int color) {
-        GradientDrawable drawable = (GradientDrawable) getResources().getDrawable(R.drawable.cpb_background).mutate();
-        drawable.setColor(color);
-        drawable.setCornerRadius(mCornerRadius);
-
-        StrokeGradientDrawable strokeGradientDrawable = new StrokeGradientDrawable(drawable);
-        strokeGradientDrawable.setStrokeColor(color);
-        strokeGradientDrawable.setStrokeWidth(mStrokeWidth);
+        int strokeColor = mStrokeColor != Color.TRANSPARENT ? mStrokeColor : color;
+        int strokeWidth = mIdleStrokeWidth != Color.TRANSPARENT ? mIdleStrokeWidth : mStrokeWidth;
+        GradientDrawable drawable = obtainDrawable(color, strokeColor, strokeWidth);
+        return new StrokeGradientDrawable(drawable, color, strokeWidth, strokeColor, mCornerRadius);
+    }
 
-        return strokeGradientDrawable;
+    private GradientDrawable obtainDrawable(int color, int strokeColor, int strokeWidth) {
+        return StateDrawableCache.obtain(getResources(), color, strokeColor, strokeWidth, mCornerRadius);
     }
 
     @Override
@@ -235,39 +314,30 @@ public class CircularProgressButton extends Button {
         }
 
         try {
-            mIdleText = attr.getString(R.styleable.CircularProgressButton_cpb_textIdle);
-            mCompleteText = attr.getString(R.styleable.CircularProgressButton_cpb_textComplete);
-            mErrorText = attr.getString(R.styleable.CircularProgressButton_cpb_textError);
-            mProgressText = attr.getString(R.styleable.CircularProgressButton_cpb_textProgress);
-
-            mIconIdle = attr.getResourceId(R.styleable.CircularProgressButton_cpb_iconIdle, 0);
-            mIconComplete = attr.getResourceId(R.styleable.CircularProgressButton_cpb_iconComplete, 0);
-            mIconError = attr.getResourceId(R.styleable.CircularProgressButton_cpb_iconError, 0);
+            mIdleLabel.setText(attr.getString(R.styleable.CircularProgressButton_cpb_textIdle));
+            mCompleteLabel.setText(attr.getString(R.styleable.CircularProgressButton_cpb_textComplete));
+            mErrorLabel.setText(attr.getString(R.styleable.CircularProgressButton_cpb_textError));
+            mProgressLabel.setText(attr.getString(R.styleable.CircularProgressButton_cpb_textProgress));
+
+            mIdleLabel.setIconId(attr.getResourceId(R.styleable.CircularProgressButton_cpb_iconIdle, 0));
+            mCompleteLabel.setIconId(attr.getResourceId(R.styleable.CircularProgressButton_cpb_iconComplete, 0));
+            mErrorLabel.setIconId(attr.getResourceId(R.styleable.CircularProgressButton_cpb_iconError, 0));
             mCornerRadius = attr.getDimension(R.styleable.CircularProgressButton_cpb_cornerRadius, 0);
             mPaddingProgress = attr.getDimensionPixelSize(R.styleable.CircularProgressButton_cpb_paddingProgress, 0);
 
-            int blue = getColor(R.color.cpb_blue);
-            int white = getColor(R.color.cpb_white);
-            int grey = getColor(R.color.cpb_grey);
-
             mDisabledStrokeColor = attr.getColor(R.styleable.CircularProgressButton_cpb_disabledStrokeColor, Color.TRANSPARENT);
             mDisabledStrokeWidth = attr.getDimensionPixelSize(R.styleable.CircularProgressButton_cpb_disabledStrokeWidth, Color.TRANSPARENT);
             mStrokeColor = attr.getColor(R.styleable.CircularProgressButton_cpb_strokeColor, Color.TRANSPARENT);
             mStrokeWidth = attr.getDimensionPixelSize(R.styleable.CircularProgressButton_cpb_strokeWidth, mStrokeWidth);
             mIdleStrokeWidth = attr.getDimensionPixelSize(R.styleable.CircularProgressButton_cpb_idleStrokeWidth, Color.TRANSPARENT);
 
-            int idleStateSelector = attr.getResourceId(R.styleable.CircularProgressButton_cpb_selectorIdle, R.color.cpb_idle_state_selector);
-            mIdleColorState = getResources().getColorStateList(idleStateSelector);
-
-            int completeStateSelector = attr.getResourceId(R.styleable.CircularProgressButton_cpb_selectorComplete, R.color.cpb_complete_state_selector);
-            mCompleteColorState = getResources().getColorStateList(completeStateSelector);
+            mIdleStateSelector = attr.getResourceId(R.styleable.CircularProgressButton_cpb_selectorIdle, mIdleStateSelector);
+            mCompleteStateSelector = attr.getResourceId(R.styleable.CircularProgressButton_cpb_selectorComplete, mCompleteStateSelector);
+            mErrorStateSelector = attr.getResourceId(R.styleable.CircularProgressButton_cpb_selectorError, mErrorStateSelector);
 
-            int errorStateSelector = attr.getResourceId(R.styleable.CircularProgressButton_cpb_selectorError, R.color.cpb_error_state_selector);
-            mErrorColorState = getResources().getColorStateList(errorStateSelector);
-
-            mColorProgress = attr.getColor(R.styleable.CircularProgressButton_cpb_colorProgress, white);
-            mColorIndicator = attr.getColor(R.styleable.CircularProgressButton_cpb_colorIndicator, blue);
-            mColorIndicatorBackground = attr.getColor(R.styleable.CircularProgressButton_cpb_colorIndicatorBackground, grey);
+            mColorProgress = getColor(attr, R.styleable.CircularProgressButton_cpb_colorProgress, R.color.cpb_white);
+            mColorIndicator = getColor(attr, R.styleable.CircularProgressButton_cpb_colorIndicator, R.color.cpb_blue);
+            mColorIndicatorBackground = getColor(attr, R.styleable.CircularProgressButton_cpb_colorIndicatorBackground, R.color.cpb_grey);
         } finally {
             attr.recycle();
         }
@@ -277,53 +347,384 @@ public class CircularProgressButton extends Button {
         return getResources().getColor(id);
     }
 
+    /**
+     * Only resolves the default color resource when the attribute is not set.
+     */
+    private int getColor(TypedArray attr, int index, int defaultId) {
+        return attr.hasValue(index) ? attr.getColor(index, 0) : getColor(defaultId);
+    }
+
+    /**
+     * Color state lists are resolved on first use, so a button which never leaves IDLE does not load the
+     * complete and error selectors.
+     */
+    private ColorStateList getIdleColorState() {
+        if (mIdleColorState == null) {
+            mIdleColorState = getResources().getColorStateList(mIdleStateSelector);
+        }
+        return mIdleColorState;
+    }
+
+    private ColorStateList getCompleteColorState() {
+        if (mCompleteColorState == null) {
+            mCompleteColorState = getResources().getColorStateList(mCompleteStateSelector);
+        }
+        return mCompleteColorState;
+    }
+
+    private ColorStateList getErrorColorState() {
+        if (mErrorColorState == null) {
+            mErrorColorState = getResources().getColorStateList(mErrorStateSelector);
+        }
+        return mErrorColorState;
+    }
+
     protected TypedArray getTypedArray(Context context, AttributeSet attributeSet, int[] attr) {
         return context.obtainStyledAttributes(attributeSet, attr, 0, 0);
     }
 
+    @Override
+    public void draw(Canvas canvas) {
+        if (mSnapshotCache == null || !isSettled()) {
+            super.draw(canvas);
+            return;
+        }
+
+        int key = getSnapshotKey();
+        Bitmap snapshot = mSnapshotCache.get(key, getWidth(), getHeight(), getLabel(mState).getText(),
+                getCurrentTextColor());
+        if (snapshot == null) {
+            super.draw(mSnapshotCache.begin(key));
+            snapshot = mSnapshotCache.end(key);
+        }
+        canvas.drawBitmap(snapshot, 0, 0, null);
+    }
+
+    private boolean isSettled() {
+        return mState != State.PROGRESS && !mMorphingInProgress && getWidth() > 0 && getHeight() > 0
+                && getScrollX() == 0 && getScrollY() == 0;
+    }
+
+    private int getSnapshotKey() {
+        int key = mState.ordinal() << 3;
+        if (isPressed()) {
+            key |= 1;
+        }
+        if (isFocused()) {
+            key |= 2;
+        }
+        if (isEnabled()) {
+            key |= 4;
+        }
+        return key;
+    }
+
+    private void clearSnapshots() {
+        if (mSnapshotCache != null) {
+            mSnapshotCache.clear();
+        }
+    }
+
+    public boolean isSnapshotCacheEnabled() {
+        return mSnapshotCache != null;
+    }
+
+    /**
+     * Render the settled IDLE, COMPLETE and ERROR appearances once into bitmaps and draw them with a single
+     * blit afterwards. Costs one bitmap of the view size per state and press/focus/enabled combination shown.
+     */
+    public void setSnapshotCacheEnabled(boolean snapshotCacheEnabled) {
+        if (snapshotCacheEnabled && mSnapshotCache == null) {
+            mSnapshotCache = new SnapshotCache();
+        } else if (!snapshotCacheEnabled && mSnapshotCache != null) {
+            mSnapshotCache.clear();
+            mSnapshotCache = null;
+        }
+        invalidate();
+    }
+
+    public long getSnapshotHitCount() {
+        return mSnapshotCache != null ? mSnapshotCache.getHitCount() : 0;
+    }
+
+    public long getSnapshotMissCount() {
+        return mSnapshotCache != null ? mSnapshotCache.getMissCount() : 0;
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+        if (mMetrics != null && mMorphingInProgress) {
+            mMetrics.recordMorphDraw(getMorphTransition());
+        }
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        drawLabels(canvas);
 
         if (mProgress > 0 && mState == State.PROGRESS && !mMorphingInProgress) {
+            long progressStart = mMetrics != null ? System.nanoTime() : 0;
             if (mIndeterminateProgressMode) {
                 drawIndeterminateProgress(canvas);
+                if (mMetrics != null) {
+                    mMetrics.recordTime(ProgressButtonMetrics.DRAW_INDETERMINATE_PROGRESS,
+                            System.nanoTime() - progressStart);
+                }
             } else {
                 drawProgress(canvas);
+                if (mMetrics != null) {
+                    mMetrics.recordTime(ProgressButtonMetrics.DRAW_PROGRESS, System.nanoTime() - progressStart);
+                }
             }
         }
+
+        if (mMetrics != null) {
+            mMetrics.recordTime(ProgressButtonMetrics.DRAW, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Draws the label of the current state, which is only the {@code TextView} text when settled in the idle state
+     * without an icon. While morphing, the old label
+     * fades out during the first half and the new one fades in during the second, clipped to the background.
+     */
+    private void drawLabels(Canvas canvas) {
+        if (!mMorphingInProgress && mState == State.IDLE && !mIdleLabel.hasIcon()) {
+            // the view itself holds the idle text
+            super.onDraw(canvas);
+            return;
+        }
+
+        int left = mLeftPadding;
+        int top = getPaddingTop();
+        int right = getWidth() - mRightPadding;
+        int bottom = getHeight() - getPaddingBottom();
+
+        if (!mMorphingInProgress) {
+            drawLabel(canvas, getLabel(mState), left, top, right, bottom, 255);
+            return;
+        }
+
+        float fraction = getMorphingAnimation().getFraction();
+        int saveCount = canvas.save();
+        canvas.clipRect(background.getGradientDrawable().getBounds());
+        if (fraction < .5f) {
+            drawLabel(canvas, getLabel(mState), left, top, right, bottom, (int) (255 * (1f - fraction * 2f)));
+        } else {
+            drawLabel(canvas, getLabel(mMorphTarget), left, top, right, bottom, (int) (255 * (fraction * 2f - 1f)));
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void drawLabel(Canvas canvas, StateLabel label, int left, int top, int right, int bottom, int alpha) {
+        if (alpha > 0 && !label.isEmpty()) {
+            label.draw(canvas, this, left, top, right, bottom, alpha);
+        }
+    }
+
+    private StateLabel getLabel(State state) {
+        switch (state) {
+            case PROGRESS:
+                return mProgressLabel;
+            case COMPLETE:
+                return mCompleteLabel;
+            case ERROR:
+                return mErrorLabel;
+            default:
+                return mIdleLabel;
+        }
     }
 
     private void drawIndeterminateProgress(Canvas canvas) {
         if (mAnimatedDrawable == null) {
-            int offset = (getWidth() - getHeight()) / 2;
-            mAnimatedDrawable = new CircularAnimatedDrawable(mColorIndicator, mStrokeWidth);
-            int left = offset + mPaddingProgress;
-            int right = getWidth() - offset - mPaddingProgress;
-            int bottom = getHeight() - mPaddingProgress;
-            int top = mPaddingProgress;
-            mAnimatedDrawable.setBounds(left, top, right, bottom);
+            mAnimatedDrawable = new CircularAnimatedDrawable(mColorIndicator, mStrokeWidth, getFrameClock());
+            updateProgressBounds();
             mAnimatedDrawable.setCallback(this);
+            mAnimatedDrawable.setSynchronized(mIndeterminateProgressSynchronized);
+            mAnimatedDrawable.setAtlasEnabled(mIndeterminateProgressAtlasEnabled);
+            applyFramePolicy();
             mAnimatedDrawable.start();
         } else {
+            if (!mAnimatedDrawable.isRunning()) {
+                applyFramePolicy();
+                mAnimatedDrawable.start();
+            }
             mAnimatedDrawable.draw(canvas);
         }
     }
 
     private void drawProgress(Canvas canvas) {
         if (mProgressDrawable == null) {
-            int offset = (getWidth() - getHeight()) / 2;
             int size = getHeight() - mPaddingProgress * 2;
             mProgressDrawable = new CircularProgressDrawable(size, mStrokeWidth, mColorIndicator);
-            int left = offset + mPaddingProgress;
-            mProgressDrawable.setBounds(left, mPaddingProgress, left, mPaddingProgress);
+            updateProgressBounds();
         }
 
-        float sweepAngle = (360f / SUCCESS_STATE_PROGRESS) * mProgress;
-        mProgressDrawable.setSweepAngle(sweepAngle);
+        if (mProgressSmoother != null && !mStaticIndicator) {
+            long now = getFrameClock().now();
+            mProgressDrawable.setSweepAngle(mProgressSmoother.getValue(now));
+            if (!mProgressSmoother.isSettled(now)) {
+                invalidateNextProgressFrame();
+            }
+        } else {
+            mProgressDrawable.setSweepAngle(getSweepAngle());
+        }
         mProgressDrawable.draw(canvas);
     }
 
+    private void updateProgressBounds() {
+        int offset = (getWidth() - getHeight()) / 2;
+        int size = getHeight() - mPaddingProgress * 2;
+        int left = offset + mPaddingProgress;
+        if (mAnimatedDrawable != null) {
+            mAnimatedDrawable.setBounds(left, mPaddingProgress, getWidth() - offset - mPaddingProgress,
+                    getHeight() - mPaddingProgress);
+        }
+        if (mProgressDrawable != null) {
+            mProgressDrawable.setBounds(left, mPaddingProgress, left + size, mPaddingProgress + size);
+        }
+    }
+
+    private float getSweepAngle() {
+        return AnimationMath.getProgressSweepAngle(mProgressFraction);
+    }
+
+    private void invalidateProgress() {
+        if (mIndeterminateProgressMode || mProgressDrawable == null) {
+            invalidate();
+        } else if (mProgressDrawable.isVisibleChange(getSweepAngle())) {
+            invalidateProgressBounds();
+        }
+    }
+
+    private void invalidateProgressBounds() {
+        Rect bounds = mProgressDrawable.getBounds();
+        invalidate(bounds.left - 1, bounds.top - 1, bounds.right + 1, bounds.bottom + 1);
+    }
+
+    /**
+     * Any number of requests within one frame interval result in a single redraw.
+     */
+    private void invalidateNextProgressFrame() {
+        if (mFrameInterval > 0) {
+            getFrameClock().postFrameCallbackDelayed(mInvalidateProgressFrame, mFrameInterval);
+        } else {
+            invalidateProgressBounds();
+        }
+    }
+
+    private final FrameClock.Callback mInvalidateProgressFrame = new FrameClock.Callback() {
+        @Override
+        public void doFrame(long frameTime) {
+            if (mProgressDrawable != null) {
+                invalidateProgressBounds();
+            }
+        }
+    };
+
+    /**
+     * Resolve the frame rate cap and power saver policy against the animator duration scale read on attach and the
+     * current power save mode, and apply them to the spinner and the arc smoothing. Done when animation starts and
+     * when battery saver is toggled rather than every frame.
+     */
+    private void applyFramePolicy() {
+        int maxFrameRate = mMaxFrameRate != USE_DEFAULT ? mMaxFrameRate : sDefaultMaxFrameRate;
+        int policy = mPowerSaverPolicy != USE_DEFAULT ? mPowerSaverPolicy : sDefaultPowerSaverPolicy;
+
+        boolean staticIndicator = false;
+        if (policy != POWER_SAVER_IGNORE) {
+            if (mAnimatorDurationScale == 0f) {
+                staticIndicator = true;
+            } else if (PowerSaverCompat.isPowerSaveMode(getContext())) {
+                if (policy == POWER_SAVER_STATIC) {
+                    staticIndicator = true;
+                } else if (maxFrameRate == 0 || maxFrameRate > POWER_SAVER_FRAME_RATE) {
+                    maxFrameRate = POWER_SAVER_FRAME_RATE;
+                }
+            }
+        }
+
+        mFrameInterval = maxFrameRate > 0 ? 1000 / maxFrameRate : 0;
+        mStaticIndicator = staticIndicator;
+        if (mAnimatedDrawable != null) {
+            mAnimatedDrawable.setMinFrameInterval(mFrameInterval);
+            mAnimatedDrawable.setStatic(staticIndicator);
+        }
+    }
+
+    public int getMaxFrameRate() {
+        return mMaxFrameRate != USE_DEFAULT ? mMaxFrameRate : sDefaultMaxFrameRate;
+    }
+
+    /**
+     * Cap the frame rate of the indeterminate spinner and of the arc smoothing, e.g. to save battery on 90 and
+     * 120 Hz displays. Zero draws every frame. Overrides {@link #setDefaultMaxFrameRate(int)} for this button.
+     */
+    public void setMaxFrameRate(int maxFrameRate) {
+        mMaxFrameRate = Math.max(0, maxFrameRate);
+        applyFramePolicy();
+    }
+
+    public int getPowerSaverPolicy() {
+        return mPowerSaverPolicy != USE_DEFAULT ? mPowerSaverPolicy : sDefaultPowerSaverPolicy;
+    }
+
+    /**
+     * Choose what happens while battery saver is on: {@link #POWER_SAVER_REDUCE_FRAME_RATE} caps the frame rate to
+     * {@link #POWER_SAVER_FRAME_RATE}, {@link #POWER_SAVER_STATIC} draws a still indicator. Unless the policy is
+     * {@link #POWER_SAVER_IGNORE}, the indicator is also still when the animator duration scale is zero.
+     * Overrides {@link #setDefaultPowerSaverPolicy(int)} for this button.
+     */
+    public void setPowerSaverPolicy(int powerSaverPolicy) {
+        mPowerSaverPolicy = powerSaverPolicy;
+        applyFramePolicy();
+    }
+
+    /**
+     * Frame rate cap for buttons without their own, see {@link #setMaxFrameRate(int)}. Applies from the next time
+     * an animation starts.
+     */
+    public static void setDefaultMaxFrameRate(int maxFrameRate) {
+        sDefaultMaxFrameRate = Math.max(0, maxFrameRate);
+    }
+
+    /**
+     * Power saver policy for buttons without their own, see {@link #setPowerSaverPolicy(int)}. Applies from the
+     * next time an animation starts.
+     */
+    public static void setDefaultPowerSaverPolicy(int powerSaverPolicy) {
+        sDefaultPowerSaverPolicy = powerSaverPolicy;
+    }
+
+    /**
+     * Hand the new target to the smoother, or restart it from an empty arc when leaving the progress state.
+     */
+    private void updateProgressSmoother() {
+        if (mProgressSmoother == null) {
+            return;
+        }
+        if (getTargetState(mProgress) == State.PROGRESS) {
+            mProgressSmoother.setTarget(getSweepAngle(), getFrameClock().now());
+        } else {
+            mProgressSmoother.jumpTo(0);
+        }
+    }
+
+    public boolean isProgressSmoothingEnabled() {
+        return mProgressSmoother != null;
+    }
+
+    /**
+     * Animate the determinate arc toward the latest progress at display rate, instead of drawing each value as
+     * it arrives. Lets callers report progress only a few times a second without the arc moving in steps.
+     */
+    public void setProgressSmoothingEnabled(boolean progressSmoothingEnabled) {
+        if (progressSmoothingEnabled && mProgressSmoother == null) {
+            applyFramePolicy();
+            mProgressSmoother = new ProgressSmoother();
+            mProgressSmoother.jumpTo(getTargetState(mProgress) == State.PROGRESS ? getSweepAngle() : 0);
+        } else if (!progressSmoothingEnabled) {
+            mProgressSmoother = null;
+        }
+    }
+
     public long getDelay() {
         return mDelay;
     }
@@ -356,29 +757,120 @@ public class CircularProgressButton extends Button {
         this.mIndeterminateProgressMode = indeterminateProgressMode;
     }
 
+    public boolean isIndeterminateProgressSynchronized() {
+        return mIndeterminateProgressSynchronized;
+    }
+
+    /**
+     * Drive the indeterminate progress from a clock shared by all synchronized buttons, so that their
+     * spinners stay in phase and are advanced and invalidated together once per frame.
+     */
+    public void setIndeterminateProgressSynchronized(boolean indeterminateProgressSynchronized) {
+        mIndeterminateProgressSynchronized = indeterminateProgressSynchronized;
+        if (mAnimatedDrawable != null) {
+            mAnimatedDrawable.setSynchronized(indeterminateProgressSynchronized);
+        }
+    }
+
+    public boolean isIndeterminateProgressAtlasEnabled() {
+        return mIndeterminateProgressAtlasEnabled;
+    }
+
+    /**
+     * Draw the indeterminate progress from pre-rendered arcs instead of stroking it every frame. Intended for
+     * software-rendered windows and low-end devices, where stroking an anti-aliased arc is the costly part.
+     */
+    public void setIndeterminateProgressAtlasEnabled(boolean indeterminateProgressAtlasEnabled) {
+        mIndeterminateProgressAtlasEnabled = indeterminateProgressAtlasEnabled;
+        if (mAnimatedDrawable != null) {
+            mAnimatedDrawable.setAtlasEnabled(indeterminateProgressAtlasEnabled);
+        }
+    }
+
+    public boolean isMorphCacheEnabled() {
+        return mMorphCacheEnabled;
+    }
+
+    /**
+     * Bake each state transition into a keyframe table shared by buttons with the same style, so that
+     * repeated transitions are replayed by table lookup instead of being interpolated every frame. Only applies with
+     * the default interpolator or a {@code LinearInterpolator}; morphs with any other are interpolated every frame.
+     */
+    public void setMorphCacheEnabled(boolean morphCacheEnabled) {
+        mMorphCacheEnabled = morphCacheEnabled;
+        if (mMorphingAnimation != null) {
+            mMorphingAnimation.setKeyframesEnabled(morphCacheEnabled);
+        }
+    }
+
+    public FrameClock getFrameClock() {
+        return mFrameClock != null ? mFrameClock : FrameClock.getDefault();
+    }
+
+    /**
+     * Time source and frame scheduler for the morphs, the spinner and the arc smoothing of this button. Defaults to
+     * {@link FrameClock#getDefault()}; a {@link ManualFrameClock} makes every frame deterministic.
+     */
+    public void setFrameClock(FrameClock frameClock) {
+        getFrameClock().removeFrameCallback(mInvalidateProgressFrame);
+        mFrameClock = frameClock;
+        if (mMorphingAnimation != null) {
+            mMorphingAnimation.setFrameClock(getFrameClock());
+        }
+        if (mAnimatedDrawable != null) {
+            mAnimatedDrawable.stop();
+            mAnimatedDrawable.setCallback(null);
+            mAnimatedDrawable = null;
+            invalidate();
+        }
+    }
+
+    public ProgressButtonMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Record draw times, morphs and dropped frames into the given metrics, or stop recording when null.
+     * The same instance may be set on several buttons.
+     */
+    public void setMetrics(ProgressButtonMetrics metrics) {
+        mMetrics = metrics;
+        if (mMorphingAnimation != null) {
+            mMorphingAnimation.setMetrics(metrics);
+        }
+    }
+
     @Override
     protected boolean verifyDrawable(Drawable who) {
         return who == mAnimatedDrawable || super.verifyDrawable(who);
     }
 
-    private MorphingAnimation createMorphing() {
+    private MorphingAnimation getMorphingAnimation() {
+        if (mMorphingAnimation == null) {
+            mMorphingAnimation = new MorphingAnimation(this, background, getFrameClock());
+            mMorphingAnimation.setKeyframesEnabled(mMorphCacheEnabled);
+            mMorphingAnimation.setMetrics(mMetrics);
+            mMorphingAnimation.setRefreshIntervalNanos(mRefreshIntervalNanos);
+        }
+        return mMorphingAnimation;
+    }
+
+    private MorphingAnimation createMorphing(State target) {
         mMorphingInProgress = true;
+        mMorphTarget = target;
+        mMorphStartTime = System.nanoTime();
 
-        MorphingAnimation animation = new MorphingAnimation(this, background);
+        MorphingAnimation animation = getMorphingAnimation();
         animation.setFromCornerRadius(mCornerRadius);
         animation.setToCornerRadius(mCornerRadius);
 
+        animation.setFromPadding(0);
+        animation.setToPadding(0);
+
         animation.setFromWidth(getWidth());
         animation.setToWidth(getWidth());
 
-        animation.setDelay(mDelay);
-
-        if (mConfigurationChanged) {
-            animation.setDuration(MorphingAnimation.DURATION_INSTANT);
-        } else {
-            animation.setDuration(mDuration > 0 ? mDuration : MorphingAnimation.DURATION_NORMAL);
-        }
-
+        setMorphTiming(animation);
         animation.setInterpolator(mInterpolator);
 
         mConfigurationChanged = false;
@@ -386,26 +878,35 @@ public class CircularProgressButton extends Button {
         return animation;
     }
 
-    private MorphingAnimation createProgressMorphing(float fromCorner, float toCorner, int fromWidth, int toWidth) {
+    /**
+     * Scale delay and duration by the animator duration scale read on attach, like platform animators do. A scale of
+     * zero, just like restoring after a configuration change, makes the morph end on its first frame.
+     */
+    private void setMorphTiming(MorphingAnimation animation) {
+        float scale = mConfigurationChanged ? 0f : mAnimatorDurationScale;
+        int duration = mDuration > 0 ? mDuration : MorphingAnimation.DURATION_NORMAL;
+        animation.setDelay((long) (mDelay * scale));
+        animation.setDuration(Math.max(MorphingAnimation.DURATION_INSTANT, (int) (duration * scale)));
+    }
+
+    private MorphingAnimation createProgressMorphing(State target, float fromCorner, float toCorner, int fromWidth,
+            int toWidth) {
+        stopIndeterminateProgress();
         mMorphingInProgress = true;
+        mMorphTarget = target;
+        mMorphStartTime = System.nanoTime();
 
-        MorphingAnimation animation = new MorphingAnimation(this, background);
+        MorphingAnimation animation = getMorphingAnimation();
         animation.setFromCornerRadius(fromCorner);
         animation.setToCornerRadius(toCorner);
 
-        animation.setPadding(mPaddingProgress);
+        animation.setFromPadding(fromWidth > toWidth ? 0 : mPaddingProgress);
+        animation.setToPadding(fromWidth > toWidth ? mPaddingProgress : 0);
 
         animation.setFromWidth(fromWidth);
         animation.setToWidth(toWidth);
 
-        animation.setDelay(mDelay);
-
-        if (mConfigurationChanged) {
-            animation.setDuration(MorphingAnimation.DURATION_INSTANT);
-        } else {
-            animation.setDuration(mDuration > 0 ? mDuration : MorphingAnimation.DURATION_NORMAL);
-        }
-
+        setMorphTiming(animation);
         animation.setInterpolator(mInterpolator);
 
         mConfigurationChanged = false;
@@ -414,19 +915,13 @@ public class CircularProgressButton extends Button {
     }
 
     private void morphToProgress() {
-        setWidth(getWidth());
+        MorphingAnimation animation =
+                createProgressMorphing(State.PROGRESS, mCornerRadius, getHeight(), getWidth(), getHeight());
 
-        setText(mProgressText);
-        removeIcon();
-
-        setPadding(0, getTotalPaddingTop(), 0, getTotalPaddingBottom());
-
-        MorphingAnimation animation = createProgressMorphing(mCornerRadius, getHeight(), getWidth(), getHeight());
-
-        animation.setFromColor(getNormalColor(mIdleColorState));
+        animation.setFromColor(getNormalColor(getIdleColorState()));
         animation.setToColor(mColorProgress);
 
-        animation.setFromStrokeColor(getNormalColor(mIdleColorState));
+        animation.setFromStrokeColor(getNormalColor(getIdleColorState()));
         animation.setToStrokeColor(mColorIndicatorBackground);
 
         animation.setListener(mProgressStateListener);
@@ -438,21 +933,24 @@ public class CircularProgressButton extends Button {
         @Override
         public void onAnimationEnd() {
             background.setStrokeWidth(mStrokeWidth);
+            recordMorphEnd();
             mMorphingInProgress = false;
             mState = State.PROGRESS;
+            notifyShownTextChanged();
 
             mStateManager.checkState(CircularProgressButton.this);
         }
     };
 
     private void morphProgressToComplete() {
-        MorphingAnimation animation = createProgressMorphing(getHeight(), mCornerRadius, getHeight(), getWidth());
+        MorphingAnimation animation =
+                createProgressMorphing(State.COMPLETE, getHeight(), mCornerRadius, getHeight(), getWidth());
 
         animation.setFromColor(mColorProgress);
-        animation.setToColor(getNormalColor(mCompleteColorState));
+        animation.setToColor(getNormalColor(getCompleteColorState()));
 
         animation.setFromStrokeColor(mColorIndicator);
-        animation.setToStrokeColor(getNormalColor(mCompleteColorState));
+        animation.setToStrokeColor(getNormalColor(getCompleteColorState()));
 
         animation.setListener(mCompleteStateListener);
 
@@ -460,13 +958,13 @@ public class CircularProgressButton extends Button {
     }
 
     private void morphIdleToComplete() {
-        MorphingAnimation animation = createMorphing();
+        MorphingAnimation animation = createMorphing(State.COMPLETE);
 
-        animation.setFromColor(getNormalColor(mIdleColorState));
-        animation.setToColor(getNormalColor(mCompleteColorState));
+        animation.setFromColor(getNormalColor(getIdleColorState()));
+        animation.setToColor(getNormalColor(getCompleteColorState()));
 
-        animation.setFromStrokeColor(getNormalColor(mIdleColorState));
-        animation.setToStrokeColor(getNormalColor(mCompleteColorState));
+        animation.setFromStrokeColor(getNormalColor(getIdleColorState()));
+        animation.setToStrokeColor(getNormalColor(getCompleteColorState()));
 
         animation.setListener(mCompleteStateListener);
 
@@ -476,24 +974,23 @@ public class CircularProgressButton extends Button {
     private OnAnimationEndListener mCompleteStateListener = new OnAnimationEndListener() {
         @Override
         public void onAnimationEnd() {
-            setText(mCompleteText);
-            setIcon(mIconComplete, mCompleteText == null || mCompleteText.isEmpty());
-
+            recordMorphEnd();
             mMorphingInProgress = false;
             mState = State.COMPLETE;
+            notifyShownTextChanged();
 
             mStateManager.checkState(CircularProgressButton.this);
         }
     };
 
     private void morphCompleteToIdle() {
-        MorphingAnimation animation = createMorphing();
+        MorphingAnimation animation = createMorphing(State.IDLE);
 
-        animation.setFromColor(getNormalColor(mCompleteColorState));
-        animation.setToColor(getNormalColor(mIdleColorState));
+        animation.setFromColor(getNormalColor(getCompleteColorState()));
+        animation.setToColor(getNormalColor(getIdleColorState()));
 
-        animation.setFromStrokeColor(getNormalColor(mCompleteColorState));
-        animation.setToStrokeColor(getNormalColor(mIdleColorState));
+        animation.setFromStrokeColor(getNormalColor(getCompleteColorState()));
+        animation.setToStrokeColor(getNormalColor(getIdleColorState()));
 
         animation.setListener(mIdleStateListener);
 
@@ -502,13 +999,13 @@ public class CircularProgressButton extends Button {
     }
 
     private void morphErrorToIdle() {
-        MorphingAnimation animation = createMorphing();
+        MorphingAnimation animation = createMorphing(State.IDLE);
 
-        animation.setFromColor(getNormalColor(mErrorColorState));
-        animation.setToColor(getNormalColor(mIdleColorState));
+        animation.setFromColor(getNormalColor(getErrorColorState()));
+        animation.setToColor(getNormalColor(getIdleColorState()));
 
-        animation.setFromStrokeColor(getNormalColor(mErrorColorState));
-        animation.setToStrokeColor(getNormalColor(mIdleColorState));
+        animation.setFromStrokeColor(getNormalColor(getErrorColorState()));
+        animation.setToStrokeColor(getNormalColor(getIdleColorState()));
 
         animation.setListener(mIdleStateListener);
 
@@ -518,11 +1015,10 @@ public class CircularProgressButton extends Button {
     private OnAnimationEndListener mIdleStateListener = new OnAnimationEndListener() {
         @Override
         public void onAnimationEnd() {
-            setText(mIdleText);
-            setIcon(mIconIdle, mIdleText == null || mIdleText.isEmpty());
-
+            recordMorphEnd();
             mMorphingInProgress = false;
             mState = State.IDLE;
+            notifyShownTextChanged();
 
             mStateManager.checkState(CircularProgressButton.this);
             if (mStrokeColor != Color.TRANSPARENT) {
@@ -535,13 +1031,13 @@ public class CircularProgressButton extends Button {
     };
 
     private void morphIdleToError() {
-        MorphingAnimation animation = createMorphing();
+        MorphingAnimation animation = createMorphing(State.ERROR);
 
-        animation.setFromColor(getNormalColor(mIdleColorState));
-        animation.setToColor(getNormalColor(mErrorColorState));
+        animation.setFromColor(getNormalColor(getIdleColorState()));
+        animation.setToColor(getNormalColor(getErrorColorState()));
 
-        animation.setFromStrokeColor(getNormalColor(mIdleColorState));
-        animation.setToStrokeColor(getNormalColor(mErrorColorState));
+        animation.setFromStrokeColor(getNormalColor(getIdleColorState()));
+        animation.setToStrokeColor(getNormalColor(getErrorColorState()));
 
         animation.setListener(mErrorStateListener);
 
@@ -549,13 +1045,14 @@ public class CircularProgressButton extends Button {
     }
 
     private void morphProgressToError() {
-        MorphingAnimation animation = createProgressMorphing(getHeight(), mCornerRadius, getHeight(), getWidth());
+        MorphingAnimation animation =
+                createProgressMorphing(State.ERROR, getHeight(), mCornerRadius, getHeight(), getWidth());
 
         animation.setFromColor(mColorProgress);
-        animation.setToColor(getNormalColor(mErrorColorState));
+        animation.setToColor(getNormalColor(getErrorColorState()));
 
         animation.setFromStrokeColor(mColorIndicator);
-        animation.setToStrokeColor(getNormalColor(mErrorColorState));
+        animation.setToStrokeColor(getNormalColor(getErrorColorState()));
         animation.setListener(mErrorStateListener);
 
         animation.start();
@@ -564,44 +1061,203 @@ public class CircularProgressButton extends Button {
     private OnAnimationEndListener mErrorStateListener = new OnAnimationEndListener() {
         @Override
         public void onAnimationEnd() {
-            setText(mErrorText);
-            setIcon(mIconError, mErrorText == null || mErrorText.isEmpty());
-
+            recordMorphEnd();
             mMorphingInProgress = false;
             mState = State.ERROR;
+            notifyShownTextChanged();
 
             mStateManager.checkState(CircularProgressButton.this);
         }
     };
 
     private void morphProgressToIdle() {
-        MorphingAnimation animation = createProgressMorphing(getHeight(), mCornerRadius, getHeight(), getWidth());
+        MorphingAnimation animation =
+                createProgressMorphing(State.IDLE, getHeight(), mCornerRadius, getHeight(), getWidth());
 
         animation.setFromColor(mColorProgress);
-        animation.setToColor(getNormalColor(mIdleColorState));
+        animation.setToColor(getNormalColor(getIdleColorState()));
 
         animation.setFromStrokeColor(mColorIndicator);
-        animation.setToStrokeColor(getNormalColor(mIdleColorState));
+        animation.setToStrokeColor(getNormalColor(getIdleColorState()));
         animation.setListener(mIdleStateListener);
 
         animation.start();
     }
 
-    private void setIcon(int icon, boolean center) {
-        Drawable drawable = icon != 0 ? getResources().getDrawable(icon) : null;
-        if (drawable != null) {
-            setCompoundDrawablesWithIntrinsicBounds(icon, 0, 0, 0);
+    private int getMorphTransition() {
+        return Transition.of(mState.ordinal(), mMorphTarget.ordinal());
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (mMetrics != null && mMorphingInProgress) {
+            mMetrics.recordMorphInvalidate(getMorphTransition());
+        }
+    }
+
+    @Override
+    public void invalidate(Rect dirty) {
+        super.invalidate(dirty);
+        if (mMetrics != null && mMorphingInProgress) {
+            mMetrics.recordMorphInvalidate(getMorphTransition());
+        }
+    }
+
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        super.invalidate(l, t, r, b);
+        if (mMetrics != null && mMorphingInProgress) {
+            mMetrics.recordMorphInvalidate(getMorphTransition());
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        if (mMetrics != null && mMorphingInProgress) {
+            mMetrics.recordMorphLayout(getMorphTransition());
+        }
+    }
+
+    private void recordMorphEnd() {
+        if (mMetrics != null) {
+            mMetrics.recordMorph(getMorphTransition(), System.nanoTime() - mMorphStartTime);
+        }
+        if (mTrace != null) {
+            mTrace.setMorphEnd(mMorphTraceSequence);
+        }
+    }
+
+    private void trace(int disposition, boolean morphStarted) {
+        if (mTrace != null) {
+            long sequence = mTrace.record(mProgress, mState.ordinal(), Transition.getTargetState(mProgress),
+                    disposition, morphStarted);
+            if (morphStarted) {
+                mMorphTraceSequence = sequence;
+            }
+        }
+    }
+
+    private State getTargetState(int progress) {
+        int state = Transition.getTargetState(progress);
+        return state != Transition.STATE_NONE ? STATES[state] : null;
+    }
+
+    /**
+     * Redirect the running morph to the state matching the new progress, starting from the current width,
+     * colors and corner radius instead of waiting for the running morph to finish.
+     */
+    private void retargetMorphing() {
+        State target = getTargetState(mProgress);
+        if (target == null || target == mMorphTarget) {
+            if (mMetrics != null) {
+                mMetrics.recordIgnoredProgress();
+            }
+            trace(target == null ? TransitionTrace.DROPPED : TransitionTrace.COALESCED, false);
+            return;
+        }
+        trace(TransitionTrace.RETARGETED, true);
+        stopIndeterminateProgress();
+
+        mStateManager.saveProgress(this);
+        mMorphTarget = target;
+
+        MorphingAnimation animation = getMorphingAnimation();
+        animation.continueFromCurrentValues();
+        animation.setDelay(0);
+
+        setMorphTarget(animation, target);
 
-            if (center) {
-                int padding = (getWidth() + mLeftPadding + mRightPadding) / 2 - drawable.getIntrinsicWidth() / 2;
+        animation.start();
+    }
 
-                setPadding(padding / 2, getTotalPaddingTop(), padding / 2, getTotalPaddingBottom());
+    /**
+     * Point the animation and its end listener at the settled appearance of the given state.
+     */
+    private void setMorphTarget(MorphingAnimation animation, State target) {
+        if (target == State.PROGRESS) {
+            animation.setToWidth(getHeight());
+            animation.setToCornerRadius(getHeight());
+            animation.setToPadding(mPaddingProgress);
+            animation.setToColor(mColorProgress);
+            animation.setToStrokeColor(mColorIndicatorBackground);
+            animation.setListener(mProgressStateListener);
+        } else {
+            ColorStateList colorState;
+            OnAnimationEndListener listener;
+            if (target == State.COMPLETE) {
+                colorState = getCompleteColorState();
+                listener = mCompleteStateListener;
+            } else if (target == State.ERROR) {
+                colorState = getErrorColorState();
+                listener = mErrorStateListener;
             } else {
-                setPadding(mLeftPadding, getTotalPaddingTop(), mRightPadding, getTotalPaddingBottom());
+                colorState = getIdleColorState();
+                listener = mIdleStateListener;
             }
+
+            animation.setToWidth(getWidth());
+            animation.setToCornerRadius(mCornerRadius);
+            animation.setToPadding(0);
+            animation.setToColor(getNormalColor(colorState));
+            animation.setToStrokeColor(getNormalColor(colorState));
+            animation.setListener(listener);
+        }
+    }
+
+    /**
+     * Show the state matching the given progress immediately, without animating. Any running morph is dropped
+     * and the existing drawables and animators are reused, which makes this suitable for rebinding recycled
+     * views, e.g. in a {@code RecyclerView}. Invalid progress values are ignored.
+     */
+    public void jumpToProgress(int progress) {
+        State target = getTargetState(progress);
+        if (target == null) {
+            return;
+        }
+
+        if (mMorphingAnimation != null) {
+            mMorphingAnimation.cancel();
+        }
+        mMorphingInProgress = false;
+        mMorphTarget = null;
+        mProgress = progress;
+        mProgressFraction = progress / (float) SUCCESS_STATE_PROGRESS;
+        mStateManager.saveProgress(this);
+        if (mProgressSmoother != null) {
+            mProgressSmoother.jumpTo(target == State.PROGRESS ? getSweepAngle() : 0);
+        }
+        trace(TransitionTrace.APPLIED, false);
+        mState = target;
+        notifyShownTextChanged();
+
+        if (target == State.PROGRESS) {
+            background.setStrokeWidth(mStrokeWidth);
         } else {
-            removeIcon();
+            stopIndeterminateProgress();
+        }
+
+        applySettledGeometry();
+        refreshDrawableState();
+        invalidate();
+    }
+
+    /**
+     * Returns the button to IDLE without animating, see {@link #jumpToProgress(int)}.
+     */
+    public void reset() {
+        jumpToProgress(IDLE_STATE_PROGRESS);
+    }
+
+    private void applySettledGeometry() {
+        if (getWidth() == 0) {
+            return;
         }
+        MorphingAnimation animation = getMorphingAnimation();
+        setMorphTarget(animation, mState);
+        animation.jumpToEnd();
+        updateProgressBounds();
     }
 
     protected void removeIcon() {
@@ -622,6 +1278,29 @@ public class CircularProgressButton extends Button {
         }
     }
 
+    /**
+     * Post the action to run on the next animation frame. Masks the API changes made in Jelly Bean.
+     */
+    @SuppressLint("NewApi")
+    void postOnAnimationCompat(Runnable action) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postOnAnimation(action);
+        } else {
+            post(action);
+        }
+    }
+
+    /**
+     * Masks {@code isAttachedToWindow()} being added in KitKat.
+     */
+    @SuppressLint("NewApi")
+    private boolean isAttachedToWindowCompat() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return isAttachedToWindow();
+        }
+        return getWindowToken() != null;
+    }
+
     public void setState(State state) throws Exception {
         if(state != null) {
             switch (state) {
@@ -658,40 +1337,60 @@ public class CircularProgressButton extends Button {
     }
 
     public void setProgress(int progress) {
+        if (AnimationMath.getProgress(mProgressFraction) != progress) {
+            mProgressFraction = progress / (float) SUCCESS_STATE_PROGRESS;
+        }
         mProgress = progress;
+        updateProgressSmoother();
+
+        if (getWidth() == 0) {
+            trace(TransitionTrace.DROPPED, false);
+            return;
+        }
 
-        if (mMorphingInProgress || getWidth() == 0) {
+        if (mMorphingInProgress) {
+            retargetMorphing();
             return;
         }
 
         mStateManager.saveProgress(this);
 
-        if (mProgress >= SUCCESS_STATE_PROGRESS) {
-            if (mState == State.PROGRESS) {
+        int transition = Transition.get(mState.ordinal(), mProgress);
+        if (transition == Transition.NONE) {
+            trace(TransitionTrace.DROPPED, false);
+        } else {
+            trace(mReplayingProgress ? TransitionTrace.REPLAYED : TransitionTrace.APPLIED,
+                    transition != Transition.PROGRESS_TO_PROGRESS);
+        }
+
+        switch (transition) {
+            case Transition.PROGRESS_TO_COMPLETE:
                 morphProgressToComplete();
-            } else if (mState == State.IDLE) {
+                break;
+            case Transition.IDLE_TO_COMPLETE:
                 morphIdleToComplete();
-            }
-        } else if (mProgress > IDLE_STATE_PROGRESS) {
-            if (mState == State.IDLE) {
+                break;
+            case Transition.IDLE_TO_PROGRESS:
                 morphToProgress();
-            } else if (mState == State.PROGRESS) {
-                invalidate();
-            }
-        } else if (mProgress == ERROR_STATE_PROGRESS) {
-            if (mState == State.PROGRESS) {
+                break;
+            case Transition.PROGRESS_TO_PROGRESS:
+                invalidateProgress();
+                break;
+            case Transition.PROGRESS_TO_ERROR:
                 morphProgressToError();
-            } else if (mState == State.IDLE) {
+                break;
+            case Transition.IDLE_TO_ERROR:
                 morphIdleToError();
-            }
-        } else if (mProgress == IDLE_STATE_PROGRESS) {
-            if (mState == State.COMPLETE) {
+                break;
+            case Transition.COMPLETE_TO_IDLE:
                 morphCompleteToIdle();
-            } else if (mState == State.PROGRESS) {
+                break;
+            case Transition.PROGRESS_TO_IDLE:
                 morphProgressToIdle();
-            } else if (mState == State.ERROR) {
+                break;
+            case Transition.ERROR_TO_IDLE:
                 morphErrorToIdle();
-            }
+                break;
         }
     }
 
@@ -699,38 +1398,396 @@ public class CircularProgressButton extends Button {
         return mProgress;
     }
 
+    /**
+     * Set progress as a fraction of the work done, at a finer resolution than {@link #setProgress(int)}. Values
+     * below 1 keep the button in the progress state and 1 completes it.
+     */
+    public void setProgressFraction(float fraction) {
+        mProgressFraction = Math.max(0f, Math.min(1f, fraction));
+        setProgress(AnimationMath.getProgress(mProgressFraction));
+    }
+
+    /**
+     * Same as {@link #setProgressFraction(float)} with {@code bytes / totalBytes}.
+     */
+    public void setProgressBytes(long bytes, long totalBytes) {
+        setProgressFraction(totalBytes > 0 ? (float) ((double) bytes / totalBytes) : 0f);
+    }
+
+    public float getProgressFraction() {
+        return mProgressFraction;
+    }
+
+    /**
+     * Drive the progress from a byte counter, read once per frame until its transfer is done or has failed, or
+     * another source is set. A stalled transfer is read less often, and none is read while detached. Pass null to
+     * stop reading.
+     */
+    public void setProgressSource(ByteCounter counter) {
+        mProgressSource = counter;
+        mProgressSourceCount = -1;
+        removeCallbacks(mReadProgressSource);
+        if (counter != null) {
+            postOnAnimationCompat(mReadProgressSource);
+        }
+    }
+
+    public ByteCounter getProgressSource() {
+        return mProgressSource;
+    }
+
+    private final Runnable mReadProgressSource = new Runnable() {
+        @Override
+        public void run() {
+            ByteCounter counter = mProgressSource;
+            if (counter == null) {
+                return;
+            }
+            if (counter.isFailed()) {
+                mProgressSource = null;
+                setProgress(ERROR_STATE_PROGRESS);
+                return;
+            }
+            long now = getFrameClock().now();
+            long count = counter.getCount();
+            if (count != mProgressSourceCount) {
+                mProgressSourceCount = count;
+                mProgressSourceChangeTime = now;
+                setProgressBytes(count, counter.getTotalBytes());
+            }
+            if (count >= counter.getTotalBytes()) {
+                mProgressSource = null;
+            } else if (now - mProgressSourceChangeTime < PROGRESS_SOURCE_STALL_TIMEOUT) {
+                postOnAnimationCompat(this);
+            } else {
+                postDelayed(this, PROGRESS_SOURCE_STALL_INTERVAL);
+            }
+        }
+    };
+
+    /**
+     * Called by {@link StateManager} to apply progress which changed while a morph was running.
+     */
+    void replayProgress(int progress) {
+        mReplayingProgress = true;
+        setProgress(progress);
+        mReplayingProgress = false;
+    }
+
+    public TransitionTrace getTransitionTrace() {
+        return mTrace;
+    }
+
+    /**
+     * Record every progress request, the transition it caused and when the resulting morph ran into the given
+     * trace, or stop tracing when null.
+     */
+    public void setTransitionTrace(TransitionTrace trace) {
+        mTrace = trace;
+        mMorphTraceSequence = -1;
+    }
+
+    /**
+     * Returns a sink which accepts progress from any thread and applies the latest value once per frame. Created
+     * on first use, since most buttons only get progress on the UI thread; may be called from any thread.
+     */
+    public synchronized ProgressSink getProgressSink() {
+        if (mProgressSink == null) {
+            mProgressSink = new ProgressSink(this);
+        }
+        return mProgressSink;
+    }
+
     public void setBackgroundColor(int color) {
-        background.getGradientDrawable().setColor(color);
+        background.setColor(color);
+        clearSnapshots();
     }
 
     public void setStrokeColor(int color) {
         background.setStrokeColor(color);
+        clearSnapshots();
+    }
+
+    @Override
+    public void setTextSize(int unit, float size) {
+        super.setTextSize(unit, size);
+        clearSnapshots();
+    }
+
+    @Override
+    public void setTypeface(Typeface typeface) {
+        super.setTypeface(typeface);
+        clearSnapshots();
+    }
+
+    @Override
+    public void setTextColor(int color) {
+        super.setTextColor(color);
+        clearSnapshots();
+    }
+
+    @Override
+    public void setTextColor(ColorStateList colors) {
+        super.setTextColor(colors);
+        clearSnapshots();
     }
 
     public String getIdleText() {
-        return mIdleText;
+        return mIdleLabel.getText();
     }
 
     public String getCompleteText() {
-        return mCompleteText;
+        return mCompleteLabel.getText();
     }
 
     public String getErrorText() {
-        return mErrorText;
+        return mErrorLabel.getText();
     }
 
+    /**
+     * Same as {@link #setText(CharSequence)}; the idle text is the one the view is measured with.
+     */
     public void setIdleText(String text) {
-        mIdleText = text;
+        setText(text);
+    }
+
+    /**
+     * Also becomes the idle text.
+     */
+    @Override
+    public void setText(CharSequence text, BufferType type) {
+        super.setText(text, type);
+        // null while the TextView constructor sets the initial text
+        if (mIdleLabel != null && mIdleLabel.setText(text != null ? text.toString() : null)) {
+            onLabelChanged();
+        }
+    }
+
+    /**
+     * The view keeps the idle text as {@link #getText()}, so that its measured size never changes with the state;
+     * this returns the label that is shown instead, including the one faded in during the second half of a morph.
+     */
+    public CharSequence getShownText() {
+        if (!isShowingOtherText()) {
+            return getText();
+        }
+        String text = getLabel(getShownState()).getText();
+        return text != null ? text : "";
+    }
+
+    /**
+     * Tell accessibility services that the shown label changed. Does nothing while accessibility is off, unlike
+     * {@code setContentDescription}, which would also override a description set by the app.
+     */
+    private void notifyShownTextChanged() {
+        if (mAccessibilityManager == null) {
+            mAccessibilityManager = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+        }
+        if (mAccessibilityManager != null && mAccessibilityManager.isEnabled()) {
+            sendAccessibilityEvent(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED);
+        }
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        if (isShowingOtherText()) {
+            event.getText().clear();
+            event.getText().add(getShownText());
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        if (isShowingOtherText()) {
+            info.setText(getShownText());
+        }
+    }
+
+    private boolean isShowingOtherText() {
+        State state = getShownState();
+        return state != null && state != State.IDLE;
+    }
+
+    private State getShownState() {
+        if (mMorphingInProgress && mMorphTarget != null && mMorphingAnimation != null
+                && mMorphingAnimation.getFraction() >= .5f) {
+            return mMorphTarget;
+        }
+        return mState;
     }
 
     public void setCompleteText(String text) {
-        mCompleteText = text;
+        if (!mCompleteLabel.setText(text)) {
+            return;
+        }
+        onLabelChanged();
     }
 
     public void setErrorText(String text) {
-        mErrorText = text;
+        if (!mErrorLabel.setText(text)) {
+            return;
+        }
+        onLabelChanged();
+    }
+
+    private void onLabelChanged() {
+        clearSnapshots();
+        notifyShownTextChanged();
+        invalidate();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAnimatorDurationScale = PowerSaverCompat.getAnimatorDurationScale(getContext());
+        mRefreshIntervalNanos = DisplayCompat.getRefreshIntervalNanos(this);
+        if (mMorphingAnimation != null) {
+            mMorphingAnimation.setRefreshIntervalNanos(mRefreshIntervalNanos);
+        }
+        applyFramePolicy();
+        PowerSaverCompat.addOnPowerSaveModeChangeListener(mPowerSaveModeListener);
+        if (mProgressSource != null) {
+            removeCallbacks(mReadProgressSource);
+            postOnAnimationCompat(mReadProgressSource);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mMorphingInProgress) {
+            // settle at once instead of animating a view nobody sees
+            jumpToProgress(mProgress);
+        }
+        stopIndeterminateProgress();
+        clearSnapshots();
+        removeCallbacks(mReadProgressSource);
+        getFrameClock().removeFrameCallback(mInvalidateProgressFrame);
+        PowerSaverCompat.removeOnPowerSaveModeChangeListener(mPowerSaveModeListener);
+    }
+
+    private final PowerSaverCompat.OnPowerSaveModeChangeListener mPowerSaveModeListener =
+            new PowerSaverCompat.OnPowerSaveModeChangeListener() {
+                @Override
+                public void onPowerSaveModeChanged() {
+                    applyFramePolicy();
+                    invalidate();
+                }
+            };
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateIndeterminateProgressVisibility();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateIndeterminateProgressVisibility();
+    }
+
+    /**
+     * Stop the spinner while it cannot be seen. It is started again by the next draw, which the invalidate
+     * below or the view becoming visible will cause.
+     */
+    private void updateIndeterminateProgressVisibility() {
+        if (mAnimatedDrawable == null) {
+            return;
+        }
+        if (isShown() && getWindowVisibility() == VISIBLE) {
+            resumeIndeterminateProgress();
+        } else {
+            mAnimatedDrawable.stop();
+        }
+    }
+
+    /**
+     * Start the spinner again if it was stopped while out of sight and the button shows it once more. The
+     * redraw a started spinner requests is not guaranteed otherwise, since a parent scrolling the button back
+     * into view only replays its last drawing.
+     */
+    private void resumeIndeterminateProgress() {
+        if (mAnimatedDrawable == null || mAnimatedDrawable.isRunning() || !mIndeterminateProgressMode
+                || mState != State.PROGRESS || mMorphingInProgress || mProgress <= 0) {
+            return;
+        }
+        if (!isShown() || getWindowVisibility() != VISIBLE || !getLocalVisibleRect(mVisibleRect)) {
+            return;
+        }
+        setScrollWatched(false);
+        applyFramePolicy();
+        mAnimatedDrawable.start();
+    }
+
+    private void stopIndeterminateProgress() {
+        setScrollWatched(false);
+        if (mAnimatedDrawable != null) {
+            mAnimatedDrawable.stop();
+        }
+    }
+
+    private final ViewTreeObserver.OnScrollChangedListener mResumeOnScroll =
+            new ViewTreeObserver.OnScrollChangedListener() {
+                @Override
+                public void onScrollChanged() {
+                    resumeIndeterminateProgress();
+                }
+            };
+
+    /**
+     * Listen to scrolling of the view hierarchy only while the spinner waits to come back into sight.
+     */
+    private void setScrollWatched(boolean watched) {
+        if (watched == (mScrollObserver != null)) {
+            return;
+        }
+        if (watched) {
+            mScrollObserver = getViewTreeObserver();
+            mScrollObserver.addOnScrollChangedListener(mResumeOnScroll);
+        } else {
+            if (mScrollObserver.isAlive()) {
+                mScrollObserver.removeOnScrollChangedListener(mResumeOnScroll);
+            }
+            mScrollObserver = null;
+        }
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable drawable) {
+        if (drawable == mAnimatedDrawable && mAnimatedDrawable.isRunning() && !getLocalVisibleRect(mVisibleRect)) {
+            // scrolled out of sight; scrolling back restarts the spinner
+            mAnimatedDrawable.stop();
+            if (isAttachedToWindowCompat()) {
+                setScrollWatched(true);
+            }
+            return;
+        }
+        super.invalidateDrawable(drawable);
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        updateProgressBounds();
+        if (mState == State.PROGRESS && !mMorphingInProgress) {
+            // the view resets the background bounds on its next draw, so shrink it back afterwards
+            postOnAnimationCompat(mApplySettledGeometry);
+        }
+    }
+
+    private final Runnable mApplySettledGeometry = new Runnable() {
+        @Override
+        public void run() {
+            if (mState == State.PROGRESS && !mMorphingInProgress) {
+                applySettledGeometry();
+            }
+        }
+    };
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
@@ -3,13 +3,15 @@ package com.dd;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 
 class CircularProgressDrawable extends Drawable {
 
+    private final RectF mArcBounds = new RectF();
+    private final Paint mPaint;
+
     private float mSweepAngle;
     private float mStartAngle;
     private int mSize;
@@ -22,27 +24,47 @@ class CircularProgressDrawable extends Drawable {
         mStrokeColor = strokeColor;
         mStartAngle = -90;
         mSweepAngle = 0;
+
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeWidth(mStrokeWidth);
+        mPaint.setColor(mStrokeColor);
     }
 
     public void setSweepAngle(float sweepAngle) {
         mSweepAngle = sweepAngle;
     }
 
+    public float getSweepAngle() {
+        return mSweepAngle;
+    }
+
     public int getSize() {
         return mSize;
     }
 
+    /**
+     * Returns true if drawing the given sweep angle would move the end of the arc by at least one pixel.
+     */
+    public boolean isVisibleChange(float sweepAngle) {
+        float radius = (mSize - mStrokeWidth) / 2f;
+        float arcLength = (float) Math.toRadians(Math.abs(sweepAngle - mSweepAngle)) * radius;
+        return arcLength >= 1f;
+    }
+
     @Override
     public void draw(Canvas canvas) {
-        final Rect bounds = getBounds();
-
-        if (mPath == null) {
-            mPath = new Path();
-        }
-        mPath.reset();
-        mPath.addArc(getRect(), mStartAngle, mSweepAngle);
-        mPath.offset(bounds.left, bounds.top);
-        canvas.drawPath(mPath, createPaint());
+        canvas.drawArc(mArcBounds, mStartAngle, mSweepAngle, false, mPaint);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mSize = Math.min(bounds.width(), bounds.height());
+        int index = mStrokeWidth / 2;
+        mArcBounds.set(index, index, getSize() - index, getSize() - index);
+        mArcBounds.offset(bounds.left, bounds.top);
     }
 
     @Override
@@ -58,28 +80,4 @@ class CircularProgressDrawable extends Drawable {
     public int getOpacity() {
         return 1;
     }
-
-    private RectF mRectF;
-    private Paint mPaint;
-    private Path mPath;
-
-    private RectF getRect() {
-        if (mRectF == null) {
-            int index = mStrokeWidth / 2;
-            mRectF = new RectF(index, index, getSize() - index, getSize() - index);
-        }
-        return mRectF;
-    }
-
-    private Paint createPaint() {
-        if (mPaint == null) {
-            mPaint = new Paint();
-            mPaint.setAntiAlias(true);
-            mPaint.setStyle(Paint.Style.STROKE);
-            mPaint.setStrokeWidth(mStrokeWidth);
-            mPaint.setColor(mStrokeColor);
-        }
-
-        return mPaint;
-    }
 }
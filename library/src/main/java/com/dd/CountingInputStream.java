@@ -0,0 +1,56 @@
+package com.dd;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adds every byte read or skipped to a {@link ByteCounter}. Marks are not supported, since a reset would make the
+ * count go backwards.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final ByteCounter mCounter;
+
+    public CountingInputStream(InputStream in, ByteCounter counter) {
+        super(in);
+        mCounter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            mCounter.add(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        int read = in.read(buffer, offset, count);
+        mCounter.add(read);
+        return read;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = in.skip(count);
+        mCounter.add(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
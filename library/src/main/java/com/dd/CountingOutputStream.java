@@ -0,0 +1,31 @@
+package com.dd;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Adds every byte written to a {@link ByteCounter}. Buffers are passed to the wrapped stream whole, unlike
+ * {@link FilterOutputStream} which writes them one byte at a time.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private final ByteCounter mCounter;
+
+    public CountingOutputStream(OutputStream out, ByteCounter counter) {
+        super(out);
+        mCounter = counter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        mCounter.add(1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int count) throws IOException {
+        out.write(buffer, offset, count);
+        mCounter.add(count);
+    }
+}
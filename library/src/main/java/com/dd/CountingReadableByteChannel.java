@@ -0,0 +1,36 @@
+package com.dd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Adds every byte read to a {@link ByteCounter}.
+ */
+public class CountingReadableByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel mChannel;
+    private final ByteCounter mCounter;
+
+    public CountingReadableByteChannel(ReadableByteChannel channel, ByteCounter counter) {
+        mChannel = channel;
+        mCounter = counter;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+        int read = mChannel.read(buffer);
+        mCounter.add(read);
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
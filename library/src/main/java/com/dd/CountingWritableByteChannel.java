@@ -0,0 +1,36 @@
+package com.dd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Adds every byte written to a {@link ByteCounter}.
+ */
+public class CountingWritableByteChannel implements WritableByteChannel {
+
+    private final WritableByteChannel mChannel;
+    private final ByteCounter mCounter;
+
+    public CountingWritableByteChannel(WritableByteChannel channel, ByteCounter counter) {
+        mChannel = channel;
+        mCounter = counter;
+    }
+
+    @Override
+    public int write(ByteBuffer buffer) throws IOException {
+        int written = mChannel.write(buffer);
+        mCounter.add(written);
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
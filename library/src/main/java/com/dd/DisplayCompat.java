@@ -0,0 +1,40 @@
+package com.dd;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.os.Build;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * Reads the refresh rate of the display a view is shown on. Masks {@code View.getDisplay()} being added in Jelly
+ * Bean MR1.
+ */
+final class DisplayCompat {
+
+    static final long DEFAULT_REFRESH_INTERVAL_NANOS = 16666667L;
+
+    private DisplayCompat() {
+    }
+
+    /**
+     * @return nanoseconds between two refreshes of the view's display, or of the default display before Jelly Bean
+     * MR1; that of a 60 Hz display when the rate cannot be read
+     */
+    @SuppressLint("NewApi")
+    static long getRefreshIntervalNanos(View view) {
+        Display display;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            display = view.getDisplay();
+        } else {
+            WindowManager windowManager = (WindowManager) view.getContext().getSystemService(Context.WINDOW_SERVICE);
+            display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        }
+        float refreshRate = display != null ? display.getRefreshRate() : 0f;
+        if (refreshRate < 1f) {
+            return DEFAULT_REFRESH_INTERVAL_NANOS;
+        }
+        return (long) (1000000000L / refreshRate);
+    }
+}
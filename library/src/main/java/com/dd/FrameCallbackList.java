@@ -0,0 +1,94 @@
+package com.dd;
+
+import java.util.ArrayList;
+
+/**
+ * Pending one-shot frame callbacks, each due at a time. Callbacks posted while a frame is dispatched run on the
+ * next frame at the earliest.
+ */
+final class FrameCallbackList {
+
+    private ArrayList<FrameClock.Callback> mPending = new ArrayList<FrameClock.Callback>();
+    private ArrayList<FrameClock.Callback> mRunning = new ArrayList<FrameClock.Callback>();
+    private long[] mPendingDueTimes = new long[8];
+    private long[] mRunningDueTimes = new long[8];
+
+    /**
+     * @return true if the list was empty before
+     */
+    boolean add(FrameClock.Callback callback) {
+        return add(callback, Long.MIN_VALUE);
+    }
+
+    /**
+     * A callback which is already pending keeps its position and becomes due at the earlier of both times.
+     *
+     * @return true if the list was empty before
+     */
+    boolean add(FrameClock.Callback callback, long dueTime) {
+        int index = mPending.indexOf(callback);
+        if (index >= 0) {
+            mPendingDueTimes[index] = Math.min(mPendingDueTimes[index], dueTime);
+            return false;
+        }
+        if (mPending.size() == mPendingDueTimes.length) {
+            long[] dueTimes = new long[mPendingDueTimes.length * 2];
+            System.arraycopy(mPendingDueTimes, 0, dueTimes, 0, mPendingDueTimes.length);
+            mPendingDueTimes = dueTimes;
+        }
+        mPendingDueTimes[mPending.size()] = dueTime;
+        mPending.add(callback);
+        return mPending.size() == 1;
+    }
+
+    void remove(FrameClock.Callback callback) {
+        int index = mPending.indexOf(callback);
+        if (index >= 0) {
+            mPending.remove(index);
+            System.arraycopy(mPendingDueTimes, index + 1, mPendingDueTimes, index, mPending.size() - index);
+        }
+    }
+
+    boolean isEmpty() {
+        return mPending.isEmpty();
+    }
+
+    int size() {
+        return mPending.size();
+    }
+
+    /**
+     * @return the earliest due time of the pending callbacks, {@link Long#MAX_VALUE} if there are none
+     */
+    long getNextDueTime() {
+        long dueTime = Long.MAX_VALUE;
+        for (int i = 0; i < mPending.size(); i++) {
+            dueTime = Math.min(dueTime, mPendingDueTimes[i]);
+        }
+        return dueTime;
+    }
+
+    /**
+     * Run the callbacks due at the frame time; the others stay pending.
+     */
+    void dispatch(long frameTime) {
+        ArrayList<FrameClock.Callback> callbacks = mPending;
+        long[] dueTimes = mPendingDueTimes;
+        mPending = mRunning;
+        mPendingDueTimes = mRunningDueTimes;
+        mRunning = callbacks;
+        mRunningDueTimes = dueTimes;
+
+        for (int i = 0; i < callbacks.size(); i++) {
+            if (dueTimes[i] > frameTime) {
+                add(callbacks.get(i), dueTimes[i]);
+            }
+        }
+        for (int i = 0; i < callbacks.size(); i++) {
+            if (dueTimes[i] <= frameTime) {
+                callbacks.get(i).doFrame(frameTime);
+            }
+        }
+        callbacks.clear();
+    }
+}
@@ -0,0 +1,60 @@
+package com.dd;
+
+/**
+ * Time source and frame scheduler read by every animation of the library: morphs, the indeterminate spinner and
+ * the arc smoothing. The default is backed by the platform {@code Choreographer}; {@link ManualFrameClock} lets
+ * tests and benchmarks step time frame by frame. Must only be used from the UI thread.
+ */
+public abstract class FrameClock {
+
+    public interface Callback {
+
+        /**
+         * @param frameTime time of the frame in milliseconds, on the same time base as {@link #now()}
+         */
+        void doFrame(long frameTime);
+    }
+
+    private static FrameClock sDefault;
+
+    private SpinnerClock mSpinnerClock;
+
+    public static FrameClock getDefault() {
+        if (sDefault == null) {
+            sDefault = new ChoreographerFrameClock();
+        }
+        return sDefault;
+    }
+
+    /**
+     * Clock for buttons that do not have their own. Only affects animations started afterwards.
+     */
+    public static void setDefault(FrameClock clock) {
+        sDefault = clock;
+    }
+
+    /**
+     * @return current animation time in milliseconds
+     */
+    public abstract long now();
+
+    /**
+     * Run the callback once, at the next frame. Posting a callback which is already pending has no effect.
+     */
+    public abstract void postFrameCallback(Callback callback);
+
+    /**
+     * Run the callback once, at the first frame at least {@code delayMillis} from now. Posting a callback which is
+     * already pending only moves it to the earlier of both frames.
+     */
+    public abstract void postFrameCallbackDelayed(Callback callback, long delayMillis);
+
+    public abstract void removeFrameCallback(Callback callback);
+
+    SpinnerClock getSpinnerClock() {
+        if (mSpinnerClock == null) {
+            mSpinnerClock = new SpinnerClock(this);
+        }
+        return mSpinnerClock;
+    }
+}
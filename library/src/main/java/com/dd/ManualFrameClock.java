@@ -0,0 +1,59 @@
+package com.dd;
+
+/**
+ * {@link FrameClock} whose time only moves when told to, for deterministic tests and benchmarks. Each call to
+ * {@link #advance(long)} produces one frame.
+ */
+public final class ManualFrameClock extends FrameClock {
+
+    public static final long FRAME_INTERVAL = 16;
+
+    private final FrameCallbackList mCallbacks = new FrameCallbackList();
+    private long mTime;
+
+    public ManualFrameClock() {
+    }
+
+    public ManualFrameClock(long time) {
+        mTime = time;
+    }
+
+    @Override
+    public long now() {
+        return mTime;
+    }
+
+    @Override
+    public void postFrameCallback(Callback callback) {
+        mCallbacks.add(callback);
+    }
+
+    @Override
+    public void postFrameCallbackDelayed(Callback callback, long delayMillis) {
+        mCallbacks.add(callback, mTime + delayMillis);
+    }
+
+    @Override
+    public void removeFrameCallback(Callback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    /**
+     * Move time forward and run the callbacks which are due by then.
+     */
+    public void advance(long millis) {
+        mTime += millis;
+        mCallbacks.dispatch(mTime);
+    }
+
+    /**
+     * Same as {@link #advance(long)} by {@link #FRAME_INTERVAL}.
+     */
+    public void step() {
+        advance(FRAME_INTERVAL);
+    }
+
+    public int getPendingCallbackCount() {
+        return mCallbacks.size();
+    }
+}
@@ -0,0 +1,146 @@
+package com.dd;
+
+import android.animation.TimeInterpolator;
+import android.util.LruCache;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.LinearInterpolator;
+
+/**
+ * Morph sampled once per frame interval into primitive arrays. Tables are shared by every button that runs
+ * a transition with the same widths, colors, corner radii, padding, duration and interpolator class. Only
+ * stateless platform interpolators are supported, since they are keyed by class: the process wide cache must not
+ * hold on to an interpolator set by the app, which may reference an Activity.
+ */
+final class MorphKeyframes {
+
+    private static final int FRAME_DURATION = 16;
+    private static final int MAX_SIZE = 32;
+
+    private static final LruCache<Key, MorphKeyframes> sCache = new LruCache<Key, MorphKeyframes>(MAX_SIZE);
+
+    final int[] mWidth;
+    final int[] mPadding;
+    final int[] mColor;
+    final int[] mStrokeColor;
+    final float[] mCornerRadius;
+
+    private MorphKeyframes(Key key, TimeInterpolator interpolator, MorphingAnimation animation) {
+        int count = Math.max(2, key.mDuration / FRAME_DURATION + 1);
+
+        mWidth = new int[count];
+        mPadding = new int[count];
+        mColor = new int[count];
+        mStrokeColor = new int[count];
+        mCornerRadius = new float[count];
+
+        for (int i = 0; i < count; i++) {
+            float fraction = interpolator.getInterpolation(i / (float) (count - 1));
+            mWidth[i] = animation.evaluateWidth(fraction);
+            mPadding[i] = animation.evaluatePadding(fraction);
+            mColor[i] = AnimationMath.evaluateColor(fraction, key.mFromColor, key.mToColor);
+            mStrokeColor[i] = AnimationMath.evaluateColor(fraction, key.mFromStrokeColor, key.mToStrokeColor);
+            mCornerRadius[i] = animation.evaluateCornerRadius(fraction);
+        }
+    }
+
+    /**
+     * @return true if morphs with the interpolator can be sampled into a shared table
+     */
+    static boolean isSupported(TimeInterpolator interpolator) {
+        Class<?> interpolatorClass = interpolator.getClass();
+        return interpolatorClass == AccelerateDecelerateInterpolator.class
+                || interpolatorClass == LinearInterpolator.class;
+    }
+
+    /**
+     * @param interpolator an instance of the key's interpolator class, see {@link #isSupported(TimeInterpolator)}
+     */
+    static MorphKeyframes obtain(Key key, TimeInterpolator interpolator, MorphingAnimation animation) {
+        MorphKeyframes keyframes = sCache.get(key);
+        if (keyframes == null) {
+            keyframes = new MorphKeyframes(key, interpolator, animation);
+            sCache.put(key, keyframes);
+        }
+        return keyframes;
+    }
+
+    /**
+     * @param fraction linear (not interpolated) fraction of the animation
+     */
+    int getFrame(float fraction) {
+        return Math.round(fraction * (mWidth.length - 1));
+    }
+
+    static final class Key {
+
+        private final int mFromWidth;
+        private final int mToWidth;
+        private final int mFromColor;
+        private final int mToColor;
+        private final int mFromStrokeColor;
+        private final int mToStrokeColor;
+        private final float mFromCornerRadius;
+        private final float mToCornerRadius;
+        private final float mFromPadding;
+        private final float mToPadding;
+        private final int mDuration;
+        private final Class<?> mInterpolatorClass;
+
+        Key(int fromWidth, int toWidth, int fromColor, int toColor, int fromStrokeColor, int toStrokeColor,
+                float fromCornerRadius, float toCornerRadius, float fromPadding, float toPadding, int duration,
+                Class<?> interpolatorClass) {
+            mFromWidth = fromWidth;
+            mToWidth = toWidth;
+            mFromColor = fromColor;
+            mToColor = toColor;
+            mFromStrokeColor = fromStrokeColor;
+            mToStrokeColor = toStrokeColor;
+            mFromCornerRadius = fromCornerRadius;
+            mToCornerRadius = toCornerRadius;
+            mFromPadding = fromPadding;
+            mToPadding = toPadding;
+            mDuration = duration;
+            mInterpolatorClass = interpolatorClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mFromWidth == key.mFromWidth
+                    && mToWidth == key.mToWidth
+                    && mFromColor == key.mFromColor
+                    && mToColor == key.mToColor
+                    && mFromStrokeColor == key.mFromStrokeColor
+                    && mToStrokeColor == key.mToStrokeColor
+                    && Float.compare(mFromCornerRadius, key.mFromCornerRadius) == 0
+                    && Float.compare(mToCornerRadius, key.mToCornerRadius) == 0
+                    && Float.compare(mFromPadding, key.mFromPadding) == 0
+                    && Float.compare(mToPadding, key.mToPadding) == 0
+                    && mDuration == key.mDuration
+                    && mInterpolatorClass == key.mInterpolatorClass;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mFromWidth;
+            result = 31 * result + mToWidth;
+            result = 31 * result + mFromColor;
+            result = 31 * result + mToColor;
+            result = 31 * result + mFromStrokeColor;
+            result = 31 * result + mToStrokeColor;
+            result = 31 * result + Float.floatToIntBits(mFromCornerRadius);
+            result = 31 * result + Float.floatToIntBits(mToCornerRadius);
+            result = 31 * result + Float.floatToIntBits(mFromPadding);
+            result = 31 * result + Float.floatToIntBits(mToPadding);
+            result = 31 * result + mDuration;
+            result = 31 * result + mInterpolatorClass.hashCode();
+            return result;
+        }
+    }
+}
@@ -1,12 +1,9 @@
 package com.dd;
 
-import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ArgbEvaluator;
-import android.animation.ObjectAnimator;
 import android.animation.TimeInterpolator;
-import android.animation.ValueAnimator;
 import android.graphics.drawable.GradientDrawable;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.LinearInterpolator;
 import android.widget.TextView;
 
 class MorphingAnimation {
@@ -14,6 +11,9 @@ class MorphingAnimation {
     public static final int DURATION_NORMAL = 400;
     public static final int DURATION_INSTANT = 1;
 
+    private static final TimeInterpolator DEFAULT_INTERPOLATOR = new AccelerateDecelerateInterpolator();
+    private static final TimeInterpolator LINEAR_INTERPOLATOR = new LinearInterpolator();
+
     private OnAnimationEndListener mListener;
 
     private long mDelay;
@@ -32,14 +32,61 @@ class MorphingAnimation {
     private float mFromCornerRadius;
     private float mToCornerRadius;
 
-    private float mPadding;
+    private float mFromPadding;
+    private float mToPadding;
 
     private TextView mView;
     private StrokeGradientDrawable mDrawable;
+    private GradientDrawable mGradientDrawable;
+
+    private FrameClock mClock;
+    private boolean mRunning;
+    private long mStartTime;
+    private TimeInterpolator mActiveInterpolator;
+    private float mFraction;
+
+    private final FrameClock.Callback mFrameCallback = new FrameClock.Callback() {
+        @Override
+        public void doFrame(long frameTime) {
+            onFrame(frameTime);
+        }
+    };
+
+    private boolean mKeyframesEnabled;
+    private boolean mRetargeted;
+    private MorphKeyframes mKeyframes;
+
+    private boolean mFirstFrame;
+    private int mAppliedWidth;
+    private int mAppliedPadding;
+    private int mAppliedColor;
+    private int mAppliedStrokeColor;
+    private float mAppliedCornerRadius;
+
+    private ProgressButtonMetrics mMetrics;
+    private long mRefreshIntervalNanos = DisplayCompat.DEFAULT_REFRESH_INTERVAL_NANOS;
+    private long mLastFrameTime;
 
     public MorphingAnimation(TextView viewGroup, StrokeGradientDrawable drawable) {
+        this(viewGroup, drawable, FrameClock.getDefault());
+    }
+
+    public MorphingAnimation(TextView viewGroup, StrokeGradientDrawable drawable, FrameClock clock) {
         mView = viewGroup;
         mDrawable = drawable;
+        mClock = clock;
+    }
+
+    /**
+     * A running morph is restarted on the new clock, since the two may not share a time base.
+     */
+    public void setFrameClock(FrameClock clock) {
+        if (mRunning) {
+            mClock.removeFrameCallback(mFrameCallback);
+            mStartTime = -1;
+            clock.postFrameCallback(mFrameCallback);
+        }
+        mClock = clock;
     }
 
     public void setDelay(long delay) {
@@ -90,74 +137,193 @@ class MorphingAnimation {
         mToCornerRadius = toCornerRadius;
     }
 
-    public void setPadding(float padding) {
-        mPadding = padding;
+    public void setFromPadding(float fromPadding) {
+        mFromPadding = fromPadding;
     }
 
-    public void start() {
-        ValueAnimator widthAnimation = ValueAnimator.ofInt(mFromWidth, mToWidth);
-        final GradientDrawable gradientDrawable = mDrawable.getGradientDrawable();
-        widthAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                Integer value = (Integer) animation.getAnimatedValue();
-                int leftOffset;
-                int rightOffset;
-                int padding;
-
-                if (mFromWidth > mToWidth) {
-                    leftOffset = (mFromWidth - value) / 2;
-                    rightOffset = mFromWidth - leftOffset;
-                    padding = (int) (mPadding * animation.getAnimatedFraction());
-                } else {
-                    leftOffset = (mToWidth - value) / 2;
-                    rightOffset = mToWidth - leftOffset;
-                    padding = (int) (mPadding - mPadding * animation.getAnimatedFraction());
-                }
-
-                gradientDrawable
-                        .setBounds(leftOffset + padding, padding, rightOffset - padding, mView.getHeight() - padding);
-            }
-        });
+    public void setToPadding(float toPadding) {
+        mToPadding = toPadding;
+    }
 
-        ObjectAnimator bgColorAnimation = ObjectAnimator.ofInt(gradientDrawable, "color", mFromColor, mToColor);
-        bgColorAnimation.setEvaluator(new ArgbEvaluator());
+    /**
+     * Use the values applied by the most recent frame as the new starting point, so that a morph which is
+     * still running can be redirected to a different target without jumping. The next start is evaluated
+     * directly, since mid-flight starting points would only fill the keyframe cache with one-off tables.
+     */
+    public void continueFromCurrentValues() {
+        if (mFirstFrame) {
+            return;
+        }
+        mRetargeted = true;
+        mFromWidth = mAppliedWidth;
+        mFromPadding = mAppliedPadding;
+        mFromColor = mAppliedColor;
+        mFromStrokeColor = mAppliedStrokeColor;
+        mFromCornerRadius = mAppliedCornerRadius;
+    }
 
-        ObjectAnimator strokeColorAnimation =
-                ObjectAnimator.ofInt(mDrawable, "strokeColor", mFromStrokeColor, mToStrokeColor);
-        strokeColorAnimation.setEvaluator(new ArgbEvaluator());
+    /**
+     * Sample the morph into a shared keyframe table on first use, so that repeated transitions with the same
+     * parameters only do a table lookup per frame. Ignored for interpolators {@link MorphKeyframes} does not support.
+     */
+    public void setKeyframesEnabled(boolean keyframesEnabled) {
+        mKeyframesEnabled = keyframesEnabled;
+    }
 
-        ObjectAnimator cornerAnimation =
-                ObjectAnimator.ofFloat(gradientDrawable, "cornerRadius", mFromCornerRadius, mToCornerRadius);
+    public void setMetrics(ProgressButtonMetrics metrics) {
+        mMetrics = metrics;
+    }
 
-        AnimatorSet animatorSet = new AnimatorSet();
-        animatorSet.setStartDelay(mDelay);
-        animatorSet.setDuration(mDuration);
-        animatorSet.setInterpolator(mInterpolator);
-        animatorSet.playTogether(widthAnimation, bgColorAnimation, strokeColorAnimation, cornerAnimation);
-        animatorSet.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
+    /**
+     * Display refresh interval that frames missed while morphing are counted against.
+     */
+    public void setRefreshIntervalNanos(long refreshIntervalNanos) {
+        mRefreshIntervalNanos = refreshIntervalNanos;
+    }
 
-            }
+    /**
+     * Starts on the next frame of the clock. A morph may be started again from the end listener of the previous one.
+     */
+    public void start() {
+        cancel();
+        mRunning = true;
+        mStartTime = -1;
+        mFraction = 0f;
+        mFirstFrame = true;
+        mLastFrameTime = -1;
+
+        mGradientDrawable = mDrawable.getGradientDrawable();
+
+        TimeInterpolator interpolator = getInterpolator();
+        boolean retargeted = mRetargeted;
+        mRetargeted = false;
+        if (mKeyframesEnabled && !retargeted && MorphKeyframes.isSupported(interpolator)) {
+            MorphKeyframes.Key key = new MorphKeyframes.Key(mFromWidth, mToWidth, mFromColor, mToColor,
+                    mFromStrokeColor, mToStrokeColor, mFromCornerRadius, mToCornerRadius, mFromPadding, mToPadding,
+                    mDuration, interpolator.getClass());
+            mKeyframes = MorphKeyframes.obtain(key, interpolator, this);
+            mActiveInterpolator = LINEAR_INTERPOLATOR;
+        } else {
+            mKeyframes = null;
+            mActiveInterpolator = interpolator;
+        }
+        mClock.postFrameCallback(mFrameCallback);
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                if (mListener != null) {
-                    mListener.onAnimationEnd();
-                }
-            }
+    public void cancel() {
+        mRunning = false;
+        mClock.removeFrameCallback(mFrameCallback);
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
+    /**
+     * @return linear progress of the morph, from 0 before its first frame to 1 once finished
+     */
+    public float getFraction() {
+        return mFraction;
+    }
 
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    private void onFrame(long frameTime) {
+        if (!mRunning) {
+            return;
+        }
+        if (mStartTime < 0) {
+            mStartTime = frameTime;
+        }
+        long playTime = frameTime - mStartTime - mDelay;
+        if (playTime < 0) {
+            mClock.postFrameCallback(mFrameCallback);
+            return;
+        }
+
+        if (mMetrics != null) {
+            recordFrame(frameTime);
+        }
+        float fraction = mDuration > 0 ? Math.min(1f, playTime / (float) mDuration) : 1f;
+        mFraction = fraction;
+        applyFraction(mActiveInterpolator.getInterpolation(fraction));
+
+        if (fraction < 1f) {
+            mClock.postFrameCallback(mFrameCallback);
+        } else {
+            mRunning = false;
+            if (mListener != null) {
+                mListener.onAnimationEnd();
             }
+        }
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+    /**
+     * Cancel the running morph, if any, and apply the target values right away.
+     */
+    public void jumpToEnd() {
+        cancel();
+        mGradientDrawable = mDrawable.getGradientDrawable();
+        mKeyframes = null;
+        mFirstFrame = true;
+        mFraction = 1f;
+        applyFraction(1f);
+    }
 
-            }
-        });
-        animatorSet.start();
+    TimeInterpolator getInterpolator() {
+        return mInterpolator != null ? mInterpolator : DEFAULT_INTERPOLATOR;
+    }
+
+    private void recordFrame(long frameTime) {
+        if (mLastFrameTime >= 0) {
+            mMetrics.recordMorphFrame((frameTime - mLastFrameTime) * 1000000L, mRefreshIntervalNanos);
+        }
+        mLastFrameTime = frameTime;
+    }
+
+    private void applyFraction(float fraction) {
+        if (mKeyframes != null) {
+            int frame = mKeyframes.getFrame(fraction);
+            apply(mKeyframes.mWidth[frame], mKeyframes.mPadding[frame], mKeyframes.mColor[frame],
+                    mKeyframes.mStrokeColor[frame], mKeyframes.mCornerRadius[frame]);
+        } else {
+            apply(evaluateWidth(fraction), evaluatePadding(fraction),
+                    AnimationMath.evaluateColor(fraction, mFromColor, mToColor),
+                    AnimationMath.evaluateColor(fraction, mFromStrokeColor, mToStrokeColor),
+                    evaluateCornerRadius(fraction));
+        }
+    }
+
+    private void apply(int width, int padding, int color, int strokeColor, float cornerRadius) {
+        int leftOffset = (mView.getWidth() - width) / 2;
+        int rightOffset = mView.getWidth() - leftOffset;
+
+        mGradientDrawable.setBounds(leftOffset + padding, padding, rightOffset - padding, mView.getHeight() - padding);
+        mAppliedWidth = width;
+        mAppliedPadding = padding;
+
+        if (mFirstFrame || color != mAppliedColor) {
+            mDrawable.setColor(color);
+            mAppliedColor = color;
+        }
+        if (mFirstFrame || strokeColor != mAppliedStrokeColor) {
+            mDrawable.setStrokeColor(strokeColor);
+            mAppliedStrokeColor = strokeColor;
+        }
+        if (mFirstFrame || cornerRadius != mAppliedCornerRadius) {
+            mDrawable.setCornerRadius(cornerRadius);
+            mAppliedCornerRadius = cornerRadius;
+        }
+        mFirstFrame = false;
+    }
+
+    int evaluateWidth(float fraction) {
+        return (int) (mFromWidth + (mToWidth - mFromWidth) * fraction);
+    }
+
+    int evaluatePadding(float fraction) {
+        return (int) (mFromPadding + (mToPadding - mFromPadding) * fraction);
+    }
+
+    float evaluateCornerRadius(float fraction) {
+        return mFromCornerRadius + (mToCornerRadius - mFromCornerRadius) * fraction;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.dd;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import java.util.ArrayList;
+
+/**
+ * Reads the system settings that ask apps to animate less. Masks the API changes made in Jelly Bean and Lollipop.
+ */
+final class PowerSaverCompat {
+
+    private static final ArrayList<OnPowerSaveModeChangeListener> sListeners =
+            new ArrayList<OnPowerSaveModeChangeListener>();
+    private static BroadcastReceiver sPowerSaveModeReceiver;
+    private static boolean sPowerSaveMode;
+
+    private PowerSaverCompat() {
+    }
+
+    /**
+     * Asks the power manager once and then keeps the answer up to date from its broadcasts, since every query is
+     * a call into the system server. Must only be called from the UI thread.
+     */
+    @SuppressLint("NewApi")
+    static boolean isPowerSaveMode(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+        if (sPowerSaveModeReceiver == null) {
+            Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+            final PowerManager powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+            if (powerManager == null) {
+                return false;
+            }
+            sPowerSaveModeReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    boolean powerSaveMode = powerManager.isPowerSaveMode();
+                    if (sPowerSaveMode == powerSaveMode) {
+                        return;
+                    }
+                    sPowerSaveMode = powerSaveMode;
+                    // backwards, since a listener may remove itself
+                    for (int i = sListeners.size() - 1; i >= 0; i--) {
+                        sListeners.get(i).onPowerSaveModeChanged();
+                    }
+                }
+            };
+            appContext.registerReceiver(sPowerSaveModeReceiver,
+                    new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+            sPowerSaveMode = powerManager.isPowerSaveMode();
+        }
+        return sPowerSaveMode;
+    }
+
+    /**
+     * Be told when battery saver is turned on or off, after {@link #isPowerSaveMode(Context)} has been called once.
+     * Must only be called from the UI thread.
+     */
+    static void addOnPowerSaveModeChangeListener(OnPowerSaveModeChangeListener listener) {
+        if (!sListeners.contains(listener)) {
+            sListeners.add(listener);
+        }
+    }
+
+    static void removeOnPowerSaveModeChangeListener(OnPowerSaveModeChangeListener listener) {
+        sListeners.remove(listener);
+    }
+
+    /**
+     * @return the factor platform animators multiply their durations with, 1 where it cannot be read
+     */
+    @SuppressLint("NewApi")
+    @SuppressWarnings("deprecation")
+    static float getAnimatorDurationScale(Context context) {
+        ContentResolver resolver = context.getContentResolver();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(resolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return Settings.System.getFloat(resolver, Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        return 1f;
+    }
+
+    interface OnPowerSaveModeChangeListener {
+
+        void onPowerSaveModeChanged();
+    }
+}
@@ -0,0 +1,75 @@
+package com.dd;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+
+/**
+ * Applies progress to many {@link CircularProgressButton}s at once. Values passed to {@link #put} from any thread
+ * are held until {@link #commit()}, which applies them all in a single UI thread message. The views are therefore
+ * invalidated together and redrawn in one traversal, and the morphs started by the batch share their first
+ * animation frame and so run on a common time base. A button put twice before a commit keeps its latest value.
+ */
+public final class ProgressBatch {
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private ArrayList<CircularProgressButton> mPendingButtons = new ArrayList<CircularProgressButton>();
+    private int[] mPendingProgress = new int[16];
+    private ArrayList<CircularProgressButton> mAppliedButtons = new ArrayList<CircularProgressButton>();
+    private int[] mAppliedProgress = new int[16];
+    private boolean mScheduled;
+
+    private final Runnable mApply = new Runnable() {
+        @Override
+        public void run() {
+            ArrayList<CircularProgressButton> buttons;
+            int[] progress;
+            synchronized (ProgressBatch.this) {
+                buttons = mPendingButtons;
+                progress = mPendingProgress;
+                mPendingButtons = mAppliedButtons;
+                mPendingProgress = mAppliedProgress;
+                mAppliedButtons = buttons;
+                mAppliedProgress = progress;
+                mScheduled = false;
+            }
+
+            for (int i = 0; i < buttons.size(); i++) {
+                buttons.get(i).setProgress(progress[i]);
+            }
+            buttons.clear();
+        }
+    };
+
+    public synchronized ProgressBatch put(CircularProgressButton button, int progress) {
+        int index = mPendingButtons.indexOf(button);
+        if (index < 0) {
+            index = mPendingButtons.size();
+            mPendingButtons.add(button);
+            if (index == mPendingProgress.length) {
+                int[] grown = new int[index * 2];
+                System.arraycopy(mPendingProgress, 0, grown, 0, index);
+                mPendingProgress = grown;
+            }
+        }
+        mPendingProgress[index] = progress;
+        return this;
+    }
+
+    /**
+     * Schedules the pending values to be applied. Does nothing if a commit is already scheduled, in which case the
+     * values put since are applied with it.
+     */
+    public synchronized void commit() {
+        if (!mScheduled && !mPendingButtons.isEmpty()) {
+            mScheduled = true;
+            mHandler.post(mApply);
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return mPendingButtons.size();
+    }
+}
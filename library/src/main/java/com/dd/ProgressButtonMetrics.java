@@ -0,0 +1,277 @@
+package com.dd;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Low overhead counters for {@link CircularProgressButton}: draw time histograms, morph counts, durations and
+ * draw, invalidate and layout request counts per transition, frames dropped while morphing and progress updates
+ * absorbed by a running morph. Recording only
+ * uses atomic increments, so it is cheap enough to leave enabled in release builds, and {@link #snapshot()} may
+ * be called from any thread. One instance can be shared by several buttons to aggregate them.
+ */
+public final class ProgressButtonMetrics {
+
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    static final int DRAW = 0;
+    static final int DRAW_PROGRESS = 1;
+    static final int DRAW_INDETERMINATE_PROGRESS = 2;
+    private static final int TIMER_COUNT = 3;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(TIMER_COUNT * HISTOGRAM_BUCKETS);
+    private final AtomicLongArray mTotalNanos = new AtomicLongArray(TIMER_COUNT);
+    private final AtomicLongArray mMorphCount = new AtomicLongArray(Transition.COUNT);
+    private final AtomicLongArray mMorphNanos = new AtomicLongArray(Transition.COUNT);
+    private final AtomicLongArray mMorphDrawCount = new AtomicLongArray(Transition.COUNT);
+    private final AtomicLongArray mMorphInvalidateCount = new AtomicLongArray(Transition.COUNT);
+    private final AtomicLongArray mMorphLayoutCount = new AtomicLongArray(Transition.COUNT);
+    private final AtomicLong mMorphFrameCount = new AtomicLong();
+    private final AtomicLong mDroppedFrameCount = new AtomicLong();
+    private final AtomicLong mIgnoredProgressCount = new AtomicLong();
+
+    void recordTime(int timer, long nanos) {
+        mBuckets.incrementAndGet(timer * HISTOGRAM_BUCKETS + getBucket(nanos));
+        mTotalNanos.addAndGet(timer, nanos);
+    }
+
+    void recordMorph(int transition, long nanos) {
+        mMorphCount.incrementAndGet(transition);
+        mMorphNanos.addAndGet(transition, nanos);
+    }
+
+    void recordMorphDraw(int transition) {
+        mMorphDrawCount.incrementAndGet(transition);
+    }
+
+    void recordMorphInvalidate(int transition) {
+        mMorphInvalidateCount.incrementAndGet(transition);
+    }
+
+    void recordMorphLayout(int transition) {
+        mMorphLayoutCount.incrementAndGet(transition);
+    }
+
+    /**
+     * @param intervalNanos time since the previous frame of the same morph
+     * @param refreshIntervalNanos time between two refreshes of the display the button is shown on
+     */
+    void recordMorphFrame(long intervalNanos, long refreshIntervalNanos) {
+        mMorphFrameCount.incrementAndGet();
+        long dropped = (intervalNanos + refreshIntervalNanos / 2) / refreshIntervalNanos - 1;
+        if (dropped > 0) {
+            mDroppedFrameCount.addAndGet(dropped);
+        }
+    }
+
+    void recordIgnoredProgress() {
+        mIgnoredProgressCount.incrementAndGet();
+    }
+
+    private static int getBucket(long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    public Snapshot snapshot() {
+        Histogram[] histograms = new Histogram[TIMER_COUNT];
+        for (int timer = 0; timer < TIMER_COUNT; timer++) {
+            long[] buckets = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                buckets[i] = mBuckets.get(timer * HISTOGRAM_BUCKETS + i);
+            }
+            histograms[timer] = new Histogram(buckets, mTotalNanos.get(timer));
+        }
+
+        return new Snapshot(histograms, copy(mMorphCount), copy(mMorphNanos), copy(mMorphDrawCount),
+                copy(mMorphInvalidateCount), copy(mMorphLayoutCount), mMorphFrameCount.get(),
+                mDroppedFrameCount.get(), mIgnoredProgressCount.get());
+    }
+
+    private static long[] copy(AtomicLongArray array) {
+        long[] copy = new long[array.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = array.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Clears all counters. Values recorded concurrently with the reset may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < mBuckets.length(); i++) {
+            mBuckets.set(i, 0);
+        }
+        for (int i = 0; i < TIMER_COUNT; i++) {
+            mTotalNanos.set(i, 0);
+        }
+        for (int i = 0; i < Transition.COUNT; i++) {
+            mMorphCount.set(i, 0);
+            mMorphNanos.set(i, 0);
+            mMorphDrawCount.set(i, 0);
+            mMorphInvalidateCount.set(i, 0);
+            mMorphLayoutCount.set(i, 0);
+        }
+        mMorphFrameCount.set(0);
+        mDroppedFrameCount.set(0);
+        mIgnoredProgressCount.set(0);
+    }
+
+    /**
+     * Immutable copy of the counters, suitable for reporting.
+     */
+    public static final class Snapshot {
+
+        private final Histogram[] mHistograms;
+        private final long[] mMorphCount;
+        private final long[] mMorphNanos;
+        private final long[] mMorphDrawCount;
+        private final long[] mMorphInvalidateCount;
+        private final long[] mMorphLayoutCount;
+        private final long mMorphFrameCount;
+        private final long mDroppedFrameCount;
+        private final long mIgnoredProgressCount;
+
+        private Snapshot(Histogram[] histograms, long[] morphCount, long[] morphNanos, long[] morphDrawCount,
+                long[] morphInvalidateCount, long[] morphLayoutCount, long morphFrameCount, long droppedFrameCount,
+                long ignoredProgressCount) {
+            mHistograms = histograms;
+            mMorphCount = morphCount;
+            mMorphNanos = morphNanos;
+            mMorphDrawCount = morphDrawCount;
+            mMorphInvalidateCount = morphInvalidateCount;
+            mMorphLayoutCount = morphLayoutCount;
+            mMorphFrameCount = morphFrameCount;
+            mDroppedFrameCount = droppedFrameCount;
+            mIgnoredProgressCount = ignoredProgressCount;
+        }
+
+        /**
+         * @return times of the whole {@code onDraw}
+         */
+        public Histogram getDrawTimes() {
+            return mHistograms[DRAW];
+        }
+
+        public Histogram getDrawProgressTimes() {
+            return mHistograms[DRAW_PROGRESS];
+        }
+
+        public Histogram getDrawIndeterminateProgressTimes() {
+            return mHistograms[DRAW_INDETERMINATE_PROGRESS];
+        }
+
+        /**
+         * @return number of finished morphs from one state to the other
+         */
+        public long getMorphCount(CircularProgressButton.State from, CircularProgressButton.State to) {
+            return mMorphCount[Transition.of(from.ordinal(), to.ordinal())];
+        }
+
+        /**
+         * @return total duration of the finished morphs from one state to the other, including start delays
+         */
+        public long getMorphDurationNanos(CircularProgressButton.State from, CircularProgressButton.State to) {
+            return mMorphNanos[Transition.of(from.ordinal(), to.ordinal())];
+        }
+
+        /**
+         * @return {@code onDraw} calls while morphing from one state to the other, including the end of the morph
+         */
+        public long getMorphDrawCount(CircularProgressButton.State from, CircularProgressButton.State to) {
+            return mMorphDrawCount[Transition.of(from.ordinal(), to.ordinal())];
+        }
+
+        /**
+         * @return {@code invalidate} calls while morphing from one state to the other
+         */
+        public long getMorphInvalidateCount(CircularProgressButton.State from, CircularProgressButton.State to) {
+            return mMorphInvalidateCount[Transition.of(from.ordinal(), to.ordinal())];
+        }
+
+        /**
+         * @return {@code requestLayout} calls while morphing from one state to the other
+         */
+        public long getMorphLayoutRequestCount(CircularProgressButton.State from, CircularProgressButton.State to) {
+            return mMorphLayoutCount[Transition.of(from.ordinal(), to.ordinal())];
+        }
+
+        public long getMorphFrameCount() {
+            return mMorphFrameCount;
+        }
+
+        /**
+         * @return frames missed while morphing, at the refresh rate of the display each button was attached to
+         */
+        public long getDroppedFrameCount() {
+            return mDroppedFrameCount;
+        }
+
+        /**
+         * @return {@code setProgress} calls absorbed by a running morph because they did not change its target
+         */
+        public long getIgnoredProgressCount() {
+            return mIgnoredProgressCount;
+        }
+    }
+
+    /**
+     * Duration histogram with power of two buckets: bucket {@code i} counts durations below
+     * {@code 2^i} nanoseconds and at least half of that.
+     */
+    public static final class Histogram {
+
+        private final long[] mBuckets;
+        private final long mTotalNanos;
+        private final long mCount;
+
+        private Histogram(long[] buckets, long totalNanos) {
+            mBuckets = buckets;
+            mTotalNanos = totalNanos;
+            long count = 0;
+            for (long bucket : buckets) {
+                count += bucket;
+            }
+            mCount = count;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getTotalNanos() {
+            return mTotalNanos;
+        }
+
+        public long getMeanNanos() {
+            return mCount == 0 ? 0 : mTotalNanos / mCount;
+        }
+
+        public long getBucketCount(int bucket) {
+            return mBuckets[bucket];
+        }
+
+        public static long getBucketUpperBoundNanos(int bucket) {
+            return 1L << bucket;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return upper bound of the bucket containing the given percentile, or 0 when empty
+         */
+        public long getPercentileNanos(float percentile) {
+            long threshold = (long) Math.ceil(mCount * percentile / 100f);
+            long count = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                count += mBuckets[i];
+                if (count > 0 && count >= threshold) {
+                    return getBucketUpperBoundNanos(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dd;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe entry point for progress updates. Any thread may call {@link #setProgress(int)}; only the
+ * latest value is kept and it is applied to the button at most once per animation frame on the UI thread.
+ */
+public class ProgressSink {
+
+    private final CircularProgressButton mButton;
+
+    private final AtomicInteger mProgress = new AtomicInteger();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+    private final AtomicLong mUpdateCount = new AtomicLong();
+    private final AtomicLong mCoalescedCount = new AtomicLong();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final FrameClock.Callback mApplyProgress = new FrameClock.Callback() {
+        @Override
+        public void doFrame(long frameTime) {
+            mScheduled.set(false);
+            mButton.setProgress(mProgress.get());
+        }
+    };
+
+    /**
+     * Frame callbacks may only be posted from the UI thread. Going through a main looper handler rather than
+     * {@code View.postOnAnimation} also works before the view is attached, when older platforms queue the runnable
+     * on the calling thread and never run it.
+     */
+    private final Runnable mScheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            mButton.getFrameClock().postFrameCallback(mApplyProgress);
+        }
+    };
+
+    ProgressSink(CircularProgressButton button) {
+        mButton = button;
+    }
+
+    public void setProgress(int progress) {
+        mProgress.set(progress);
+        mUpdateCount.incrementAndGet();
+
+        if (mScheduled.compareAndSet(false, true)) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                mScheduleFrame.run();
+            } else {
+                mHandler.post(mScheduleFrame);
+            }
+        } else {
+            mCoalescedCount.incrementAndGet();
+        }
+    }
+
+    public int getProgress() {
+        return mProgress.get();
+    }
+
+    /**
+     * @return number of values passed to {@link #setProgress(int)}
+     */
+    public long getUpdateCount() {
+        return mUpdateCount.get();
+    }
+
+    /**
+     * @return number of values that were replaced by a newer one before reaching the button
+     */
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+}
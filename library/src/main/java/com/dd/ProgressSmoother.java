@@ -0,0 +1,53 @@
+package com.dd;
+
+/**
+ * Moves a displayed value toward the latest reported target at a steady rate. Each new target is reached in
+ * about the time that passed since the previous one, so progress reported a few times a second is drawn as
+ * continuous motion that keeps pace with the work. Kept free of Android types; times are in milliseconds.
+ */
+final class ProgressSmoother {
+
+    static final long MIN_DURATION = 100;
+    static final long MAX_DURATION = 1000;
+    static final long INITIAL_DURATION = 300;
+
+    private float mFrom;
+    private float mTo;
+    private long mStartTime;
+    private long mDuration;
+    private long mLastTargetTime = -1;
+
+    void setTarget(float target, long now) {
+        if (target == mTo) {
+            return;
+        }
+        mFrom = getValue(now);
+        mTo = target;
+        mDuration = mLastTargetTime < 0
+                ? INITIAL_DURATION : Math.max(MIN_DURATION, Math.min(MAX_DURATION, now - mLastTargetTime));
+        mStartTime = now;
+        mLastTargetTime = now;
+    }
+
+    /**
+     * Show the given value right away and forget the report rate.
+     */
+    void jumpTo(float value) {
+        mFrom = value;
+        mTo = value;
+        mDuration = 0;
+        mLastTargetTime = -1;
+    }
+
+    float getValue(long now) {
+        if (isSettled(now)) {
+            return mTo;
+        }
+        float fraction = Math.max(0f, (now - mStartTime) / (float) mDuration);
+        return mFrom + (mTo - mFrom) * fraction;
+    }
+
+    boolean isSettled(long now) {
+        return now - mStartTime >= mDuration;
+    }
+}
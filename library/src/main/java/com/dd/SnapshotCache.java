@@ -0,0 +1,87 @@
+package com.dd;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.text.TextUtils;
+import android.util.SparseArray;
+
+/**
+ * Bitmaps of a button's settled appearance, one per state and drawable state flags. An entry is only
+ * reused while the view size, text and text color it was rendered with are unchanged; the owner clears the
+ * cache on any other change to its appearance.
+ */
+class SnapshotCache {
+
+    private final SparseArray<Entry> mEntries = new SparseArray<Entry>();
+    private final Canvas mCanvas = new Canvas();
+
+    private int mWidth;
+    private int mHeight;
+
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * @return the cached snapshot, or null if it has to be rendered again with {@link #begin(int)}
+     */
+    public Bitmap get(int key, int width, int height, CharSequence text, int textColor) {
+        if (width != mWidth || height != mHeight) {
+            clear();
+            mWidth = width;
+            mHeight = height;
+        }
+
+        Entry entry = mEntries.get(key);
+        if (entry != null && entry.mTextColor == textColor && TextUtils.equals(entry.mText, text)) {
+            mHitCount++;
+            return entry.mBitmap;
+        }
+
+        mMissCount++;
+        if (entry == null) {
+            entry = new Entry();
+            entry.mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mEntries.put(key, entry);
+        } else {
+            entry.mBitmap.eraseColor(0);
+        }
+        entry.mText = text;
+        entry.mTextColor = textColor;
+        return null;
+    }
+
+    /**
+     * @return a canvas drawing into the snapshot for the key which just missed in {@link #get}
+     */
+    public Canvas begin(int key) {
+        mCanvas.setBitmap(mEntries.get(key).mBitmap);
+        return mCanvas;
+    }
+
+    public Bitmap end(int key) {
+        mCanvas.setBitmap(null);
+        return mEntries.get(key).mBitmap;
+    }
+
+    /**
+     * Drops the snapshots without recycling them, since a display list recorded earlier may still draw them.
+     */
+    public void clear() {
+        mEntries.clear();
+    }
+
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    private static class Entry {
+
+        private Bitmap mBitmap;
+        private CharSequence mText;
+        private int mTextColor;
+    }
+}
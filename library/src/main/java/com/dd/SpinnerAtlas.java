@@ -0,0 +1,160 @@
+package com.dd;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Pre-rendered arcs for {@link CircularAnimatedDrawable}. Every sweep length the spinner can show is drawn
+ * once, starting at angle zero, into a cell of an alpha-only bitmap. A frame is then drawn as one cell,
+ * rotated to the current start angle and tinted with the paint color. Since the cells are alpha masks the
+ * atlas only depends on size and stroke width. Atlases are rendered on a background thread and kept in a
+ * memory bounded LRU cache. Spinners whose atlas would take more than half of that cache get none, so that
+ * they are stroked directly instead of evicting every other atlas. Must only be used from the UI thread.
+ */
+final class SpinnerAtlas {
+
+    private static final int CELL_COUNT = 48;
+    private static final int COLUMNS = 8;
+    private static final float MIN_SWEEP_ANGLE = AnimationMath.MIN_SWEEP_ANGLE;
+    private static final float MAX_SWEEP_ANGLE = 360 - AnimationMath.MIN_SWEEP_ANGLE;
+    private static final int ROWS = (CELL_COUNT + COLUMNS - 1) / COLUMNS;
+    private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_ATLAS_BYTES = MAX_CACHE_BYTES / 2;
+
+    private static final LruCache<Key, SpinnerAtlas> sCache = new LruCache<Key, SpinnerAtlas>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Key key, SpinnerAtlas value) {
+            return value.mBitmap.getByteCount();
+        }
+    };
+    private static final HashSet<Key> sPending = new HashSet<Key>();
+    private static final Executor sExecutor = Executors.newSingleThreadExecutor();
+    private static Handler sHandler;
+
+    private final Bitmap mBitmap;
+    private final int mSize;
+    private final Rect mSource = new Rect();
+
+    private SpinnerAtlas(Key key) {
+        mSize = key.mSize;
+        mBitmap = Bitmap.createBitmap(mSize * COLUMNS, mSize * ROWS, Bitmap.Config.ALPHA_8);
+
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(key.mStrokeWidth);
+
+        float inset = key.mStrokeWidth / 2f + .5f;
+        RectF arcBounds = new RectF();
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < CELL_COUNT; i++) {
+            int left = (i % COLUMNS) * mSize;
+            int top = (i / COLUMNS) * mSize;
+            arcBounds.set(left + inset, top + inset, left + mSize - inset, top + mSize - inset);
+            canvas.drawArc(arcBounds, 0, getCellSweepAngle(i), false, paint);
+        }
+    }
+
+    /**
+     * @return the atlas for the key, or null if it is not rendered yet, in which case rendering is started, or
+     * if it is too large to be cached
+     */
+    static SpinnerAtlas obtain(Key key) {
+        if (!fits(key.mSize)) {
+            return null;
+        }
+        SpinnerAtlas atlas = sCache.get(key);
+        if (atlas == null && !sPending.contains(key)) {
+            final Key pendingKey = new Key(key.mSize, key.mStrokeWidth);
+            sPending.add(pendingKey);
+            if (sHandler == null) {
+                sHandler = new Handler(Looper.getMainLooper());
+            }
+            sExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final SpinnerAtlas renderedAtlas = new SpinnerAtlas(pendingKey);
+                    sHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            sPending.remove(pendingKey);
+                            sCache.put(pendingKey, renderedAtlas);
+                        }
+                    });
+                }
+            });
+        }
+        return atlas;
+    }
+
+    /**
+     * One byte per pixel, since the atlas is {@link Bitmap.Config#ALPHA_8}.
+     */
+    private static boolean fits(int size) {
+        return size > 0 && (long) size * COLUMNS * size * ROWS <= MAX_ATLAS_BYTES;
+    }
+
+    private static float getCellSweepAngle(int cell) {
+        return MIN_SWEEP_ANGLE + (MAX_SWEEP_ANGLE - MIN_SWEEP_ANGLE) * cell / (CELL_COUNT - 1);
+    }
+
+    private static int getCell(float sweepAngle) {
+        int cell = Math.round((sweepAngle - MIN_SWEEP_ANGLE) / (MAX_SWEEP_ANGLE - MIN_SWEEP_ANGLE) * (CELL_COUNT - 1));
+        return Math.max(0, Math.min(CELL_COUNT - 1, cell));
+    }
+
+    void draw(Canvas canvas, Rect bounds, float startAngle, float sweepAngle, Paint paint) {
+        int cell = getCell(sweepAngle);
+        int left = (cell % COLUMNS) * mSize;
+        int top = (cell / COLUMNS) * mSize;
+        mSource.set(left, top, left + mSize, top + mSize);
+
+        int saveCount = canvas.save();
+        canvas.rotate(startAngle, bounds.exactCenterX(), bounds.exactCenterY());
+        canvas.drawBitmap(mBitmap, mSource, bounds, paint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    static final class Key {
+
+        private int mSize;
+        private int mStrokeWidth;
+
+        Key(int size, int strokeWidth) {
+            mSize = size;
+            mStrokeWidth = strokeWidth;
+        }
+
+        void set(int size, int strokeWidth) {
+            mSize = size;
+            mStrokeWidth = strokeWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mSize == key.mSize && mStrokeWidth == key.mStrokeWidth;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mSize + mStrokeWidth;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.dd;
+
+import java.util.ArrayList;
+
+/**
+ * Single frame source shared by all synchronized {@link CircularAnimatedDrawable}s of one {@link FrameClock}.
+ * Every frame it advances the angle and sweep of each registered drawable from the same time base and then
+ * invalidates them in one batch, so spinners stay in phase and only one frame callback is pending no matter how
+ * many are visible. The next frame is requested after the shortest minimum frame interval among them. Must only be
+ * used from the UI thread.
+ */
+final class SpinnerClock implements FrameClock.Callback {
+
+    private final FrameClock mClock;
+    private final ArrayList<CircularAnimatedDrawable> mDrawables = new ArrayList<CircularAnimatedDrawable>();
+
+    SpinnerClock(FrameClock clock) {
+        mClock = clock;
+    }
+
+    void register(CircularAnimatedDrawable drawable) {
+        if (mDrawables.contains(drawable)) {
+            return;
+        }
+        mDrawables.add(drawable);
+        drawable.setFrameTime(mClock.now());
+        mClock.postFrameCallback(this);
+    }
+
+    void unregister(CircularAnimatedDrawable drawable) {
+        mDrawables.remove(drawable);
+
+        if (mDrawables.isEmpty()) {
+            mClock.removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTime) {
+        int size = mDrawables.size();
+
+        for (int i = 0; i < size; i++) {
+            mDrawables.get(i).setFrameTime(frameTime);
+        }
+        // backwards, since a drawable may stop and unregister itself when invalidated
+        for (int i = size - 1; i >= 0; i--) {
+            mDrawables.get(i).invalidateFrame();
+        }
+
+        if (!mDrawables.isEmpty()) {
+            long interval = getMinFrameInterval();
+            if (interval > 0) {
+                mClock.postFrameCallbackDelayed(this, interval);
+            } else {
+                mClock.postFrameCallback(this);
+            }
+        }
+    }
+
+    private long getMinFrameInterval() {
+        long interval = Long.MAX_VALUE;
+        for (int i = 0; i < mDrawables.size(); i++) {
+            interval = Math.min(interval, mDrawables.get(i).getMinFrameInterval());
+        }
+        return interval;
+    }
+}
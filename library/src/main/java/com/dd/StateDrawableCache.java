@@ -0,0 +1,101 @@
+package com.dd;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.util.LruCache;
+
+import com.dd.circular.progress.button.R;
+
+/**
+ * Process-wide cache of the per-state background drawables used by {@link CircularProgressButton}.
+ * Entries are keyed by the resolved fill color, stroke color, stroke width and corner radius and hold
+ * the drawable constant state, so identical buttons share one copy instead of inflating their own.
+ */
+public final class StateDrawableCache {
+
+    private static final int MAX_SIZE = 64;
+
+    private static final LruCache<Key, Drawable.ConstantState> sCache =
+            new LruCache<Key, Drawable.ConstantState>(MAX_SIZE);
+
+    private StateDrawableCache() {
+    }
+
+    static GradientDrawable obtain(Resources resources, int color, int strokeColor, int strokeWidth,
+            float cornerRadius) {
+        Key key = new Key(color, strokeColor, strokeWidth, cornerRadius);
+        Drawable.ConstantState state = sCache.get(key);
+        if (state == null) {
+            GradientDrawable drawable = (GradientDrawable) resources.getDrawable(R.drawable.cpb_background).mutate();
+            drawable.setColor(color);
+            drawable.setCornerRadius(cornerRadius);
+            drawable.setStroke(strokeWidth, strokeColor);
+
+            state = drawable.getConstantState();
+            sCache.put(key, state);
+        }
+        return (GradientDrawable) state.newDrawable(resources);
+    }
+
+    public static int getHitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int getMissCount() {
+        return sCache.missCount();
+    }
+
+    public static float getHitRate() {
+        int hits = sCache.hitCount();
+        int total = hits + sCache.missCount();
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    public static int getEvictionCount() {
+        return sCache.evictionCount();
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    private static final class Key {
+
+        private final int mColor;
+        private final int mStrokeColor;
+        private final int mStrokeWidth;
+        private final float mCornerRadius;
+
+        Key(int color, int strokeColor, int strokeWidth, float cornerRadius) {
+            mColor = color;
+            mStrokeColor = strokeColor;
+            mStrokeWidth = strokeWidth;
+            mCornerRadius = cornerRadius;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mColor == key.mColor
+                    && mStrokeColor == key.mStrokeColor
+                    && mStrokeWidth == key.mStrokeWidth
+                    && Float.compare(mCornerRadius, key.mCornerRadius) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mColor;
+            result = 31 * result + mStrokeColor;
+            result = 31 * result + mStrokeWidth;
+            result = 31 * result + Float.floatToIntBits(mCornerRadius);
+            return result;
+        }
+    }
+}
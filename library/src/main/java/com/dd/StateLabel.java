@@ -0,0 +1,239 @@
+package com.dd;
+
+import android.annotation.SuppressLint;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.view.Gravity;
+import android.widget.TextView;
+
+import java.util.Locale;
+
+/**
+ * Text and icon shown by {@link CircularProgressButton} in one state. Drawn directly in {@code onDraw} instead of
+ * being set on the {@code TextView}, so that switching states never changes the measured content and never
+ * requests a layout. The icon is laid out like a left compound drawable, or centered when there is no text. The
+ * text follows the gravity, ellipsizing, maximum line count and line spacing of the view, and its layout is built
+ * once and reused until the text, the available width, one of those attributes or anything about the paint that
+ * affects measuring changes: size, typeface, scale, flags such as fake bold, letter spacing and locale.
+ */
+final class StateLabel {
+
+    private String mText;
+    private int mIconId;
+    private Drawable mIcon;
+    private boolean mIconResolved;
+
+    private StaticLayout mLayout;
+    private float mLayoutTextSize;
+    private Typeface mLayoutTypeface;
+    private float mLayoutTextScaleX;
+    private int mLayoutPaintFlags;
+    private float mLayoutLetterSpacing;
+    private Locale mLayoutTextLocale;
+    private int mLayoutAvailableWidth;
+    private int mLayoutGravity;
+    private TextUtils.TruncateAt mLayoutEllipsize;
+    private int mLayoutMaxLines;
+    private float mLayoutSpacingMultiplier;
+    private float mLayoutSpacingExtra;
+    private boolean mLayoutIncludePad;
+    private int mLayoutHeight;
+    private boolean mLayoutClipped;
+
+    StateLabel(String text, int iconId) {
+        mText = text;
+        mIconId = iconId;
+    }
+
+    String getText() {
+        return mText;
+    }
+
+    /**
+     * @return whether the text changed, in which case it is laid out again on the next draw
+     */
+    boolean setText(String text) {
+        if (text == null ? mText == null : text.equals(mText)) {
+            return false;
+        }
+        mText = text;
+        mLayout = null;
+        return true;
+    }
+
+    void setIconId(int iconId) {
+        mIconId = iconId;
+        mIcon = null;
+        mIconResolved = false;
+    }
+
+    boolean hasIcon() {
+        return mIconId != 0;
+    }
+
+    private Drawable getIcon(Resources resources) {
+        if (!mIconResolved) {
+            mIconResolved = true;
+            // mutated, since the alpha set when drawing must not leak into other users of the resource
+            mIcon = mIconId != 0 ? resources.getDrawable(mIconId).mutate() : null;
+        }
+        return mIcon;
+    }
+
+    private boolean hasText() {
+        return mText != null && !mText.isEmpty();
+    }
+
+    boolean isEmpty() {
+        return !hasText() && mIconId == 0;
+    }
+
+    private StaticLayout getLayout(TextView view, TextPaint paint, int availableWidth, int gravity) {
+        TextUtils.TruncateAt ellipsize = view.getEllipsize();
+        int maxLines = TextViewCompat.getMaxLines(view);
+        float spacingMultiplier = TextViewCompat.getLineSpacingMultiplier(view);
+        float spacingExtra = TextViewCompat.getLineSpacingExtra(view);
+        boolean includePad = TextViewCompat.getIncludeFontPadding(view);
+        if (mLayout != null && isLaidOutWith(paint) && mLayoutAvailableWidth == availableWidth
+                && mLayoutGravity == gravity && mLayoutEllipsize == ellipsize && mLayoutMaxLines == maxLines
+                && mLayoutSpacingMultiplier == spacingMultiplier && mLayoutSpacingExtra == spacingExtra
+                && mLayoutIncludePad == includePad) {
+            return mLayout;
+        }
+        setLaidOutWith(paint);
+        mLayoutAvailableWidth = availableWidth;
+        mLayoutGravity = gravity;
+        mLayoutEllipsize = ellipsize;
+        mLayoutMaxLines = maxLines;
+        mLayoutSpacingMultiplier = spacingMultiplier;
+        mLayoutSpacingExtra = spacingExtra;
+        mLayoutIncludePad = includePad;
+
+        CharSequence text = mText;
+        if (maxLines == 1 && ellipsize != null && ellipsize != TextUtils.TruncateAt.MARQUEE) {
+            text = TextUtils.ellipsize(text, paint, availableWidth, ellipsize);
+        }
+        int width = (int) Math.ceil(Math.min(Layout.getDesiredWidth(text, paint), availableWidth));
+        mLayout = new StaticLayout(text, paint, width, getAlignment(gravity), spacingMultiplier, spacingExtra,
+                includePad);
+        mLayoutClipped = mLayout.getLineCount() > maxLines;
+        mLayoutHeight = mLayoutClipped ? mLayout.getLineBottom(maxLines - 1) : mLayout.getHeight();
+        return mLayout;
+    }
+
+    /**
+     * @return whether the layout was built with a paint that measures text the same way
+     */
+    @SuppressLint("NewApi")
+    private boolean isLaidOutWith(TextPaint paint) {
+        if (mLayoutTextSize != paint.getTextSize() || mLayoutTypeface != paint.getTypeface()
+                || mLayoutTextScaleX != paint.getTextScaleX() || mLayoutPaintFlags != paint.getFlags()) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                && mLayoutLetterSpacing != paint.getLetterSpacing()) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1
+                || mLayoutTextLocale == paint.getTextLocale();
+    }
+
+    @SuppressLint("NewApi")
+    private void setLaidOutWith(TextPaint paint) {
+        mLayoutTextSize = paint.getTextSize();
+        mLayoutTypeface = paint.getTypeface();
+        mLayoutTextScaleX = paint.getTextScaleX();
+        mLayoutPaintFlags = paint.getFlags();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            mLayoutLetterSpacing = paint.getLetterSpacing();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            mLayoutTextLocale = paint.getTextLocale();
+        }
+    }
+
+    @SuppressLint("RtlHardcoded")
+    private static Layout.Alignment getAlignment(int gravity) {
+        switch (gravity & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.LEFT:
+                return Layout.Alignment.ALIGN_NORMAL;
+            case Gravity.RIGHT:
+                return Layout.Alignment.ALIGN_OPPOSITE;
+            default:
+                return Layout.Alignment.ALIGN_CENTER;
+        }
+    }
+
+    /**
+     * Draws within the given content bounds, with {@code alpha} applied on top of the text color.
+     */
+    @SuppressLint("RtlHardcoded")
+    void draw(Canvas canvas, TextView view, int left, int top, int right, int bottom, int alpha) {
+        Drawable icon = getIcon(view.getResources());
+        int textLeft = left;
+
+        if (icon != null) {
+            int iconWidth = icon.getIntrinsicWidth();
+            int iconHeight = icon.getIntrinsicHeight();
+            int iconLeft = hasText() ? left : (left + right - iconWidth) / 2;
+            int iconTop = (top + bottom - iconHeight) / 2;
+            icon.setBounds(iconLeft, iconTop, iconLeft + iconWidth, iconTop + iconHeight);
+            icon.setAlpha(alpha);
+            icon.draw(canvas);
+            textLeft = left + iconWidth + view.getCompoundDrawablePadding();
+        }
+
+        if (!hasText() || right <= textLeft) {
+            return;
+        }
+
+        TextPaint paint = view.getPaint();
+        int gravity = TextViewCompat.getAbsoluteGravity(view);
+        StaticLayout layout = getLayout(view, paint, right - textLeft, gravity);
+
+        int x;
+        switch (gravity & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.LEFT:
+                x = textLeft;
+                break;
+            case Gravity.RIGHT:
+                x = right - layout.getWidth();
+                break;
+            default:
+                x = (textLeft + right - layout.getWidth()) / 2;
+                break;
+        }
+        int y;
+        switch (gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+            case Gravity.TOP:
+                y = top;
+                break;
+            case Gravity.BOTTOM:
+                y = bottom - mLayoutHeight;
+                break;
+            default:
+                y = (top + bottom - mLayoutHeight) / 2;
+                break;
+        }
+
+        int textColor = view.getCurrentTextColor();
+        paint.setColor(textColor);
+        paint.setAlpha(Color.alpha(textColor) * alpha / 255);
+
+        int saveCount = canvas.save();
+        canvas.translate(x, y);
+        if (mLayoutClipped) {
+            canvas.clipRect(0, 0, layout.getWidth(), mLayoutHeight);
+        }
+        layout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+}
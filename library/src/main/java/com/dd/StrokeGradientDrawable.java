@@ -2,15 +2,43 @@ package com.dd;
 
 import android.graphics.drawable.GradientDrawable;
 
+/**
+ * Wraps the background {@link GradientDrawable}. A wrapped drawable may share its constant state with other
+ * buttons of the same style, in which case it is only mutated, and so given a private copy of that state,
+ * the first time one of the setters actually changes a value.
+ */
 public class StrokeGradientDrawable {
 
     private int mStrokeWidth;
     private int mStrokeColor;
+    private int mColor;
+    private float mCornerRadius;
+    private boolean mMutated;
 
     private GradientDrawable mGradientDrawable;
 
     public StrokeGradientDrawable(GradientDrawable drawable) {
         mGradientDrawable = drawable;
+        mMutated = true;
+    }
+
+    /**
+     * Wraps a drawable whose constant state may be shared and already has the given values applied.
+     */
+    StrokeGradientDrawable(GradientDrawable drawable, int color, int strokeWidth, int strokeColor,
+            float cornerRadius) {
+        mGradientDrawable = drawable;
+        mColor = color;
+        mStrokeWidth = strokeWidth;
+        mStrokeColor = strokeColor;
+        mCornerRadius = cornerRadius;
+    }
+
+    private void mutate() {
+        if (!mMutated) {
+            mGradientDrawable.mutate();
+            mMutated = true;
+        }
     }
 
     public int getStrokeWidth() {
@@ -18,6 +46,10 @@ public class StrokeGradientDrawable {
     }
 
     public void setStrokeWidth(int strokeWidth) {
+        if (!mMutated && strokeWidth == mStrokeWidth) {
+            return;
+        }
+        mutate();
         mStrokeWidth = strokeWidth;
         mGradientDrawable.setStroke(strokeWidth, getStrokeColor());
     }
@@ -27,10 +59,35 @@ public class StrokeGradientDrawable {
     }
 
     public void setStrokeColor(int strokeColor) {
+        if (!mMutated && strokeColor == mStrokeColor) {
+            return;
+        }
+        mutate();
         mStrokeColor = strokeColor;
         mGradientDrawable.setStroke(getStrokeWidth(), strokeColor);
     }
 
+    public void setColor(int color) {
+        if (!mMutated && color == mColor) {
+            return;
+        }
+        mutate();
+        mColor = color;
+        mGradientDrawable.setColor(color);
+    }
+
+    public void setCornerRadius(float cornerRadius) {
+        if (!mMutated && cornerRadius == mCornerRadius) {
+            return;
+        }
+        mutate();
+        mCornerRadius = cornerRadius;
+        mGradientDrawable.setCornerRadius(cornerRadius);
+    }
+
+    /**
+     * @return the wrapped drawable; change its color, corner radius and stroke through this class only
+     */
     public GradientDrawable getGradientDrawable() {
         return mGradientDrawable;
     }
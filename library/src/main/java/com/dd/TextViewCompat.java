@@ -0,0 +1,60 @@
+package com.dd;
+
+import android.annotation.SuppressLint;
+import android.os.Build;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * Reads the {@code TextView} attributes that only have getters since Jelly Bean, with the framework defaults
+ * before, and resolves gravity against the layout direction where there is one.
+ */
+final class TextViewCompat {
+
+    private TextViewCompat() {
+    }
+
+    @SuppressLint("NewApi")
+    static int getMaxLines(TextView view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return view.getMaxLines();
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    @SuppressLint("NewApi")
+    static float getLineSpacingMultiplier(TextView view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return view.getLineSpacingMultiplier();
+        }
+        return 1f;
+    }
+
+    @SuppressLint("NewApi")
+    static float getLineSpacingExtra(TextView view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return view.getLineSpacingExtra();
+        }
+        return 0f;
+    }
+
+    @SuppressLint("NewApi")
+    static boolean getIncludeFontPadding(TextView view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return view.getIncludeFontPadding();
+        }
+        return true;
+    }
+
+    /**
+     * @return the gravity of the view with {@code START} and {@code END} resolved to {@code LEFT} and {@code RIGHT}
+     */
+    @SuppressLint({"NewApi", "RtlHardcoded"})
+    static int getAbsoluteGravity(TextView view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Gravity.getAbsoluteGravity(view.getGravity(), view.getLayoutDirection());
+        }
+        return Gravity.getAbsoluteGravity(view.getGravity(), View.LAYOUT_DIRECTION_LTR);
+    }
+}
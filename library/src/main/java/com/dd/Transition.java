@@ -0,0 +1,81 @@
+package com.dd;
+
+/**
+ * Decides which transition a progress value causes. Kept free of Android types so that it can be
+ * benchmarked on a plain JVM. States are encoded as the ordinals of {@link CircularProgressButton.State} and
+ * a transition as {@code from * STATE_COUNT + to}.
+ */
+final class Transition {
+
+    static final int IDLE_STATE_PROGRESS = 0;
+    static final int ERROR_STATE_PROGRESS = -1;
+    static final int SUCCESS_STATE_PROGRESS = 100;
+    static final int INDETERMINATE_STATE_PROGRESS = 50;
+
+    static final int STATE_NONE = -1;
+    static final int STATE_PROGRESS = 0;
+    static final int STATE_IDLE = 1;
+    static final int STATE_COMPLETE = 2;
+    static final int STATE_ERROR = 3;
+    static final int STATE_COUNT = 4;
+
+    static final int NONE = -1;
+    static final int IDLE_TO_PROGRESS = STATE_IDLE * STATE_COUNT + STATE_PROGRESS;
+    static final int IDLE_TO_COMPLETE = STATE_IDLE * STATE_COUNT + STATE_COMPLETE;
+    static final int IDLE_TO_ERROR = STATE_IDLE * STATE_COUNT + STATE_ERROR;
+    static final int PROGRESS_TO_PROGRESS = STATE_PROGRESS * STATE_COUNT + STATE_PROGRESS;
+    static final int PROGRESS_TO_COMPLETE = STATE_PROGRESS * STATE_COUNT + STATE_COMPLETE;
+    static final int PROGRESS_TO_ERROR = STATE_PROGRESS * STATE_COUNT + STATE_ERROR;
+    static final int PROGRESS_TO_IDLE = STATE_PROGRESS * STATE_COUNT + STATE_IDLE;
+    static final int COMPLETE_TO_IDLE = STATE_COMPLETE * STATE_COUNT + STATE_IDLE;
+    static final int ERROR_TO_IDLE = STATE_ERROR * STATE_COUNT + STATE_IDLE;
+    static final int COUNT = STATE_COUNT * STATE_COUNT;
+
+    private Transition() {
+    }
+
+    static int getTargetState(int progress) {
+        if (progress >= SUCCESS_STATE_PROGRESS) {
+            return STATE_COMPLETE;
+        } else if (progress > IDLE_STATE_PROGRESS) {
+            return STATE_PROGRESS;
+        } else if (progress == ERROR_STATE_PROGRESS) {
+            return STATE_ERROR;
+        } else if (progress == IDLE_STATE_PROGRESS) {
+            return STATE_IDLE;
+        }
+        return STATE_NONE;
+    }
+
+    /**
+     * @return the transition caused by setting {@code progress} while in {@code fromState}, or {@link #NONE}
+     */
+    static int get(int fromState, int progress) {
+        int toState = getTargetState(progress);
+        int transition = fromState * STATE_COUNT + toState;
+
+        switch (toState) {
+            case STATE_COMPLETE:
+            case STATE_ERROR:
+                return fromState == STATE_PROGRESS || fromState == STATE_IDLE ? transition : NONE;
+            case STATE_PROGRESS:
+                return fromState == STATE_IDLE || fromState == STATE_PROGRESS ? transition : NONE;
+            case STATE_IDLE:
+                return fromState != STATE_IDLE ? transition : NONE;
+            default:
+                return NONE;
+        }
+    }
+
+    static int of(int fromState, int toState) {
+        return fromState * STATE_COUNT + toState;
+    }
+
+    static int getFromState(int transition) {
+        return transition / STATE_COUNT;
+    }
+
+    static int getToState(int transition) {
+        return transition % STATE_COUNT;
+    }
+}
@@ -0,0 +1,148 @@
+package com.dd;
+
+import android.os.SystemClock;
+
+/**
+ * Fixed size ring buffer of the progress requests a {@link CircularProgressButton} received and what it did with
+ * them. Entries are kept in preallocated primitive arrays so that recording never allocates, and the oldest entry
+ * is overwritten when the buffer is full. Must only be used from the UI thread.
+ */
+public final class TransitionTrace {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The request started a morph or redrew the progress.
+     */
+    public static final int APPLIED = 0;
+    /**
+     * The request was absorbed by a running morph that already had the same target.
+     */
+    public static final int COALESCED = 1;
+    /**
+     * The request was replayed when a morph ended, because progress changed while it was running.
+     */
+    public static final int REPLAYED = 2;
+    /**
+     * The request redirected a running morph to a different target.
+     */
+    public static final int RETARGETED = 3;
+    /**
+     * The request had no effect, either because there is no transition for it or the button was not laid out.
+     */
+    public static final int DROPPED = 4;
+
+    private static final CircularProgressButton.State[] STATES = CircularProgressButton.State.values();
+
+    private final int mCapacity;
+    private final int[] mProgress;
+    private final byte[] mFromState;
+    private final byte[] mToState;
+    private final byte[] mDisposition;
+    private final long[] mTime;
+    private final long[] mMorphStart;
+    private final long[] mMorphEnd;
+
+    private long mCount;
+
+    public interface Sink {
+
+        /**
+         * Called for each entry, oldest first. Times are {@link SystemClock#uptimeMillis()}, -1 when unknown.
+         *
+         * @param to the state the requested progress maps to, or null for an invalid progress value
+         */
+        void onEntry(int progress, CircularProgressButton.State from, CircularProgressButton.State to,
+                int disposition, long time, long morphStart, long morphEnd);
+    }
+
+    public TransitionTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TransitionTrace(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        mCapacity = capacity;
+        mProgress = new int[capacity];
+        mFromState = new byte[capacity];
+        mToState = new byte[capacity];
+        mDisposition = new byte[capacity];
+        mTime = new long[capacity];
+        mMorphStart = new long[capacity];
+        mMorphEnd = new long[capacity];
+    }
+
+    /**
+     * @return sequence number of the entry, to be passed to {@link #setMorphEnd(long)}
+     */
+    long record(int progress, int fromState, int toState, int disposition, boolean morphStarted) {
+        long sequence = mCount++;
+        int index = (int) (sequence % mCapacity);
+        long now = SystemClock.uptimeMillis();
+        mProgress[index] = progress;
+        mFromState[index] = (byte) fromState;
+        mToState[index] = (byte) toState;
+        mDisposition[index] = (byte) disposition;
+        mTime[index] = now;
+        mMorphStart[index] = morphStarted ? now : -1;
+        mMorphEnd[index] = -1;
+        return sequence;
+    }
+
+    void setMorphEnd(long sequence) {
+        if (sequence >= 0 && sequence < mCount && mCount - sequence <= mCapacity) {
+            mMorphEnd[(int) (sequence % mCapacity)] = SystemClock.uptimeMillis();
+        }
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return number of entries currently held
+     */
+    public int size() {
+        return (int) Math.min(mCount, mCapacity);
+    }
+
+    /**
+     * @return number of entries recorded since creation or the last {@link #clear()}, including overwritten ones
+     */
+    public long getRecordedCount() {
+        return mCount;
+    }
+
+    public void dump(Sink sink) {
+        for (long sequence = mCount - size(); sequence < mCount; sequence++) {
+            int index = (int) (sequence % mCapacity);
+            int toState = mToState[index];
+            sink.onEntry(mProgress[index], STATES[mFromState[index]],
+                    toState != Transition.STATE_NONE ? STATES[toState] : null, mDisposition[index], mTime[index],
+                    mMorphStart[index], mMorphEnd[index]);
+        }
+    }
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    public static String getDispositionName(int disposition) {
+        switch (disposition) {
+            case APPLIED:
+                return "APPLIED";
+            case COALESCED:
+                return "COALESCED";
+            case REPLAYED:
+                return "REPLAYED";
+            case RETARGETED:
+                return "RETARGETED";
+            case DROPPED:
+                return "DROPPED";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
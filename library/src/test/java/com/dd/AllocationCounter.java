@@ -0,0 +1,50 @@
+package com.dd;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated by the calling thread while running a frame, using the per-thread allocation
+ * counter of HotSpot. The cost of reading the counter itself is measured once and subtracted.
+ */
+final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean sThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long mThreadId = Thread.currentThread().getId();
+    private final long mOverhead;
+
+    AllocationCounter() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = getAllocatedBytes();
+            overhead = Math.min(overhead, getAllocatedBytes() - start);
+        }
+        mOverhead = overhead;
+    }
+
+    long getAllocatedBytes() {
+        return sThreadBean.getThreadAllocatedBytes(mThreadId);
+    }
+
+    /**
+     * Run the frame {@code warmUpFrames} times, so that lazily created objects and caches are in place, then
+     * return the fewest bytes allocated over {@code frames} runs in any of {@code rounds} rounds. A frame which
+     * allocates does so in every round, while the JIT and the method handles Robolectric links calls through
+     * allocate now and then on the first few thousand frames.
+     */
+    long measure(Runnable frame, int warmUpFrames, int frames, int rounds) {
+        for (int i = 0; i < warmUpFrames; i++) {
+            frame.run();
+        }
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = getAllocatedBytes();
+            for (int i = 0; i < frames; i++) {
+                frame.run();
+            }
+            allocated = Math.min(allocated, Math.max(0, getAllocatedBytes() - start - mOverhead));
+        }
+        return allocated;
+    }
+}
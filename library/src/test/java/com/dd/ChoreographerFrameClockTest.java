@@ -0,0 +1,45 @@
+package com.dd;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Scheduling delays of {@link ChoreographerFrameClock}, computed from the callbacks pending in a
+ * {@link FrameCallbackList}.
+ */
+public class ChoreographerFrameClockTest {
+
+    private static final long NOW = 1000;
+
+    private final FrameCallbackList mCallbacks = new FrameCallbackList();
+
+    @Test
+    public void delayedCallbackIsScheduledAfterItsDelay() {
+        mCallbacks.add(new NoOpCallback(), NOW + 100);
+
+        assertEquals(100, ChoreographerFrameClock.getFrameDelay(mCallbacks.getNextDueTime(), NOW));
+    }
+
+    @Test
+    public void immediateCallbackAfterDelayedOneIsScheduledWithoutDelay() {
+        mCallbacks.add(new NoOpCallback(), NOW + 100);
+        mCallbacks.add(new NoOpCallback());
+
+        assertEquals(0, ChoreographerFrameClock.getFrameDelay(mCallbacks.getNextDueTime(), NOW));
+    }
+
+    @Test
+    public void overdueCallbackIsScheduledWithoutDelay() {
+        mCallbacks.add(new NoOpCallback(), NOW - 100);
+
+        assertEquals(0, ChoreographerFrameClock.getFrameDelay(mCallbacks.getNextDueTime(), NOW));
+    }
+
+    private static final class NoOpCallback implements FrameClock.Callback {
+
+        @Override
+        public void doFrame(long frameTime) {
+        }
+    }
+}
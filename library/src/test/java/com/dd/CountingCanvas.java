@@ -0,0 +1,274 @@
+package com.dd;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+
+/**
+ * Canvas which draws nothing and only counts draw operations, so views can be rendered in tests without the
+ * allocations of a bitmap-backed or shadowed canvas.
+ */
+class CountingCanvas extends Canvas {
+
+    private final int mWidth;
+    private final int mHeight;
+    private int mSaveCount = 1;
+    private int mDrawCount;
+
+    CountingCanvas(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    int getDrawCount() {
+        return mDrawCount;
+    }
+
+    void resetDrawCount() {
+        mDrawCount = 0;
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public boolean isHardwareAccelerated() {
+        return false;
+    }
+
+    @Override
+    public boolean getClipBounds(Rect bounds) {
+        bounds.set(0, 0, mWidth, mHeight);
+        return true;
+    }
+
+    @Override
+    public boolean quickReject(RectF rect, EdgeType type) {
+        return false;
+    }
+
+    @Override
+    public boolean quickReject(Path path, EdgeType type) {
+        return false;
+    }
+
+    @Override
+    public boolean quickReject(float left, float top, float right, float bottom, EdgeType type) {
+        return false;
+    }
+
+    @Override
+    public int save() {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int save(int saveFlags) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint, int saveFlags) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint, int saveFlags) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha, int saveFlags) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha, int saveFlags) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    @Override
+    public void restore() {
+        mSaveCount--;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        mSaveCount = saveCount;
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+    }
+
+    @Override
+    public void rotate(float degrees) {
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+    }
+
+    @Override
+    public boolean clipRect(RectF rect, Region.Op op) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(Rect rect, Region.Op op) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(RectF rect) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom, Region.Op op) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        return true;
+    }
+
+    @Override
+    public boolean clipPath(Path path) {
+        return true;
+    }
+
+    @Override
+    public void drawColor(int color) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawTextRun(char[] text, int index, int count, int contextIndex, int contextCount, float x, float y,
+            boolean isRtl, Paint paint) {
+        mDrawCount++;
+    }
+
+    @Override
+    public void drawTextRun(CharSequence text, int start, int end, int contextStart, int contextEnd, float x,
+            float y, boolean isRtl, Paint paint) {
+        mDrawCount++;
+    }
+}
@@ -0,0 +1,84 @@
+package com.dd;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.dd.circular.progress.button.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A detached button must not keep any frame callback of its clock alive.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class DetachTest {
+
+    private ManualFrameClock mClock;
+    private CircularProgressButton mButton;
+    private CountingCanvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualFrameClock();
+        mButton = TestButtons.create(mClock);
+        mCanvas = new CountingCanvas(TestButtons.WIDTH, TestButtons.HEIGHT);
+    }
+
+    @Test
+    public void indeterminateProgressStopsOnDetach() {
+        mButton.setIndeterminateProgressMode(true);
+        mButton.jumpToProgress(CircularProgressButton.INDETERMINATE_STATE_PROGRESS);
+        runFrames(10);
+
+        TestButtons.detach(mButton);
+        assertNoPendingCallbacks();
+    }
+
+    @Test
+    public void synchronizedIndeterminateProgressStopsOnDetach() {
+        mButton.setIndeterminateProgressMode(true);
+        mButton.setIndeterminateProgressSynchronized(true);
+        mButton.jumpToProgress(CircularProgressButton.INDETERMINATE_STATE_PROGRESS);
+        runFrames(10);
+
+        TestButtons.detach(mButton);
+        assertNoPendingCallbacks();
+    }
+
+    @Test
+    public void throttledProgressStopsOnDetach() {
+        mButton.setMaxFrameRate(20);
+        mButton.setProgressSmoothingEnabled(true);
+        mButton.jumpToProgress(1);
+        mButton.setProgress(90);
+        runFrames(3);
+
+        TestButtons.detach(mButton);
+        assertNoPendingCallbacks();
+    }
+
+    @Test
+    public void morphStopsOnDetach() {
+        mButton.setProgress(CircularProgressButton.SUCCESS_STATE_PROGRESS);
+        runFrames(3);
+
+        TestButtons.detach(mButton);
+        assertNoPendingCallbacks();
+    }
+
+    private void runFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            mClock.step();
+            TestButtons.draw(mButton, mCanvas);
+        }
+    }
+
+    private void assertNoPendingCallbacks() {
+        mClock.step();
+        assertEquals("pending frame callbacks", 0, mClock.getPendingCallbackCount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.dd;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.dd.circular.progress.button.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Steady state frames of the button must not allocate. Each test counts the bytes over a fixed number of frames
+ * after a warm-up; the morph test starts a new morph whenever one settles, so those frames include the
+ * {@code setProgress} calls. The SDK level and shadows set in {@code robolectric.properties} keep allocations of
+ * the framework and of Robolectric out of the count.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class DrawAllocationTest {
+
+    private static final int WARM_UP_FRAMES = 200;
+    private static final int FRAMES = 500;
+    private static final int ROUNDS = 3;
+
+    private ManualFrameClock mClock;
+    private CircularProgressButton mButton;
+    private CountingCanvas mCanvas;
+    private AllocationCounter mCounter;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualFrameClock();
+        mButton = TestButtons.create(mClock);
+        mCanvas = new CountingCanvas(TestButtons.WIDTH, TestButtons.HEIGHT);
+        mCounter = new AllocationCounter();
+    }
+
+    @Test
+    public void idleFrameDoesNotAllocate() {
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                mClock.step();
+                TestButtons.draw(mButton, mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void determinateProgressFrameDoesNotAllocate() {
+        mButton.jumpToProgress(1);
+        assertNoAllocation(new Runnable() {
+            private int mProgress = 1;
+
+            @Override
+            public void run() {
+                mProgress = mProgress % 98 + 1;
+                mButton.setProgress(mProgress);
+                mClock.step();
+                TestButtons.draw(mButton, mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void indeterminateProgressFrameDoesNotAllocate() {
+        mButton.setIndeterminateProgressMode(true);
+        mButton.jumpToProgress(CircularProgressButton.INDETERMINATE_STATE_PROGRESS);
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                mClock.step();
+                TestButtons.draw(mButton, mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void morphFrameDoesNotAllocate() {
+        assertNoAllocation(new Runnable() {
+            @Override
+            public void run() {
+                // morph back and forth between IDLE and COMPLETE, starting the next morph once one has settled
+                if (mButton.getState() == CircularProgressButton.State.IDLE) {
+                    mButton.setProgress(CircularProgressButton.SUCCESS_STATE_PROGRESS);
+                } else if (mButton.getState() == CircularProgressButton.State.COMPLETE) {
+                    mButton.setProgress(CircularProgressButton.IDLE_STATE_PROGRESS);
+                }
+                mClock.step();
+                TestButtons.draw(mButton, mCanvas);
+            }
+        });
+    }
+
+    private void assertNoAllocation(Runnable frame) {
+        assertEquals("bytes allocated over " + FRAMES + " frames", 0,
+                mCounter.measure(frame, WARM_UP_FRAMES, FRAMES, ROUNDS));
+    }
+}
@@ -0,0 +1,62 @@
+package com.dd;
+
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.StateListDrawable;
+import android.widget.TextView;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.RealObject;
+import org.robolectric.shadows.ShadowDrawable;
+import org.robolectric.shadows.ShadowTextView;
+
+/**
+ * Robolectric's shadows of {@code View.invalidate()} and {@code Drawable.invalidateSelf()} call the real method
+ * by reflection, which allocates on every call. These replacements do not, so that allocation counts only include
+ * the library. Views in the tests are drawn by hand, so invalidating the view itself is a no-op. Every drawable
+ * shadow is replaced, since Robolectric expects them to extend the shadow registered for {@link Drawable}.
+ */
+final class NonAllocatingShadows {
+
+    private NonAllocatingShadows() {
+    }
+
+    @Implements(TextView.class)
+    public static class ShadowTextViewWithoutInvalidate extends ShadowTextView {
+
+        @Override
+        @Implementation
+        public void invalidate() {
+        }
+    }
+
+    @Implements(Drawable.class)
+    public static class NonAllocatingShadowDrawable extends ShadowDrawable {
+
+        @RealObject
+        private Drawable mRealDrawable;
+
+        @Override
+        @Implementation
+        public void invalidateSelf() {
+            Drawable.Callback callback = mRealDrawable.getCallback();
+            if (callback != null) {
+                callback.invalidateDrawable(mRealDrawable);
+            }
+        }
+    }
+
+    @Implements(GradientDrawable.class)
+    public static class NonAllocatingShadowGradientDrawable extends NonAllocatingShadowDrawable {
+    }
+
+    @Implements(StateListDrawable.class)
+    public static class NonAllocatingShadowStateListDrawable extends NonAllocatingShadowDrawable {
+    }
+
+    @Implements(BitmapDrawable.class)
+    public static class NonAllocatingShadowBitmapDrawable extends NonAllocatingShadowDrawable {
+    }
+}
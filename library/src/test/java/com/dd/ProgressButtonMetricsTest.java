@@ -0,0 +1,32 @@
+package com.dd;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Dropped frames are counted against the refresh interval of the display rather than a fixed 60 Hz.
+ */
+public class ProgressButtonMetricsTest {
+
+    private static final long REFRESH_60_HZ = 16666667L;
+    private static final long REFRESH_120_HZ = 8333333L;
+
+    private final ProgressButtonMetrics mMetrics = new ProgressButtonMetrics();
+
+    @Test
+    public void frameOnEveryRefreshDropsNothing() {
+        mMetrics.recordMorphFrame(REFRESH_120_HZ, REFRESH_120_HZ);
+        mMetrics.recordMorphFrame(REFRESH_60_HZ, REFRESH_60_HZ);
+
+        assertEquals(0, mMetrics.snapshot().getDroppedFrameCount());
+    }
+
+    @Test
+    public void frameEverySecondRefreshOf120HzDisplayDropsOne() {
+        mMetrics.recordMorphFrame(REFRESH_60_HZ, REFRESH_120_HZ);
+
+        assertEquals(1, mMetrics.snapshot().getDroppedFrameCount());
+        assertEquals(1, mMetrics.snapshot().getMorphFrameCount());
+    }
+}
@@ -0,0 +1,58 @@
+package com.dd;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import com.dd.circular.progress.button.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@code getText()} keeps the idle text whatever the state, while {@code getShownText()} follows the label on screen.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class ShownTextTest {
+
+    private ManualFrameClock mClock;
+    private CircularProgressButton mButton;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualFrameClock();
+        mButton = TestButtons.create(mClock);
+    }
+
+    @Test
+    public void getTextKeepsIdleTextInOtherStates() {
+        mButton.jumpToProgress(CircularProgressButton.SUCCESS_STATE_PROGRESS);
+
+        assertEquals("Upload", mButton.getText().toString());
+        assertEquals("Done", mButton.getShownText().toString());
+    }
+
+    @Test
+    public void settingTextToItselfKeepsIdleText() {
+        mButton.jumpToProgress(CircularProgressButton.ERROR_STATE_PROGRESS);
+        mButton.setText(mButton.getText());
+        mButton.reset();
+
+        assertEquals("Upload", mButton.getText().toString());
+        assertEquals("Upload", mButton.getShownText().toString());
+    }
+
+    @Test
+    public void shownTextFollowsMorph() {
+        mButton.setProgress(CircularProgressButton.SUCCESS_STATE_PROGRESS);
+        mClock.step();
+        assertEquals("Upload", mButton.getShownText().toString());
+
+        while (mButton.getState() != CircularProgressButton.State.COMPLETE) {
+            mClock.step();
+        }
+        assertEquals("Done", mButton.getShownText().toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.dd;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.robolectric.Robolectric;
+
+/**
+ * Creates buttons attached to the window of a resumed activity, laid out at a fixed size and driven by a
+ * {@link ManualFrameClock}.
+ */
+final class TestButtons {
+
+    static final int WIDTH = 400;
+    static final int HEIGHT = 100;
+
+    private TestButtons() {
+    }
+
+    static CircularProgressButton create(FrameClock clock) {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout parent = new FrameLayout(activity);
+        activity.setContentView(parent);
+
+        CircularProgressButton button = new CircularProgressButton(activity);
+        button.setFrameClock(clock);
+        button.setIdleText("Upload");
+        button.setCompleteText("Done");
+        button.setErrorText("Failed");
+        parent.addView(button, new FrameLayout.LayoutParams(WIDTH, HEIGHT));
+        layout(button);
+        return button;
+    }
+
+    static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Draws the background and then the content, like {@code View.draw}, whose Robolectric shadow only draws the
+     * background.
+     */
+    static void draw(CircularProgressButton button, Canvas canvas) {
+        button.getBackground().draw(canvas);
+        button.onDraw(canvas);
+    }
+
+    static void detach(View view) {
+        ((ViewGroup) view.getParent()).removeView(view);
+    }
+}
@@ -0,0 +1,198 @@
+package com.dd;
+
+import com.dd.CircularProgressButton.State;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dd.circular.progress.button.BuildConfig;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs every transition frame by frame on a {@link ManualFrameClock} and compares its draws, invalidations,
+ * layout requests and allocated bytes with {@code transition_baseline.txt}. A transition may do less than its
+ * baseline but not more; lower the baseline when a change improves it. Unlike {@link DrawAllocationTest}, which
+ * counts bytes over a fixed number of steady state frames, the bytes here cover one whole transition, from the
+ * {@code setProgress} call that starts the morph to its settled frame, after the same transition has warmed up
+ * caches and lazily created objects. Jumping to the start state is not counted.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class TransitionMetricsTest {
+
+    private static final String BASELINE = "transition_baseline.txt";
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int ROUNDS = 3;
+    private static final int MAX_FRAMES = 200;
+
+    private ManualFrameClock mClock;
+    private CircularProgressButton mButton;
+    private CountingCanvas mCanvas;
+    private ProgressButtonMetrics mMetrics;
+    private AllocationCounter mCounter;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualFrameClock();
+        mButton = TestButtons.create(mClock);
+        mCanvas = new CountingCanvas(TestButtons.WIDTH, TestButtons.HEIGHT);
+        mMetrics = new ProgressButtonMetrics();
+        mButton.setMetrics(mMetrics);
+        mCounter = new AllocationCounter();
+    }
+
+    @Test
+    public void idleToProgress() throws IOException {
+        assertWithinBaseline("IDLE_TO_PROGRESS", State.IDLE, State.PROGRESS,
+                CircularProgressButton.IDLE_STATE_PROGRESS, 50);
+    }
+
+    @Test
+    public void idleToComplete() throws IOException {
+        assertWithinBaseline("IDLE_TO_COMPLETE", State.IDLE, State.COMPLETE,
+                CircularProgressButton.IDLE_STATE_PROGRESS, CircularProgressButton.SUCCESS_STATE_PROGRESS);
+    }
+
+    @Test
+    public void idleToError() throws IOException {
+        assertWithinBaseline("IDLE_TO_ERROR", State.IDLE, State.ERROR,
+                CircularProgressButton.IDLE_STATE_PROGRESS, CircularProgressButton.ERROR_STATE_PROGRESS);
+    }
+
+    @Test
+    public void progressToComplete() throws IOException {
+        assertWithinBaseline("PROGRESS_TO_COMPLETE", State.PROGRESS, State.COMPLETE, 50,
+                CircularProgressButton.SUCCESS_STATE_PROGRESS);
+    }
+
+    @Test
+    public void progressToError() throws IOException {
+        assertWithinBaseline("PROGRESS_TO_ERROR", State.PROGRESS, State.ERROR, 50,
+                CircularProgressButton.ERROR_STATE_PROGRESS);
+    }
+
+    @Test
+    public void progressToIdle() throws IOException {
+        assertWithinBaseline("PROGRESS_TO_IDLE", State.PROGRESS, State.IDLE, 50,
+                CircularProgressButton.IDLE_STATE_PROGRESS);
+    }
+
+    @Test
+    public void completeToIdle() throws IOException {
+        assertWithinBaseline("COMPLETE_TO_IDLE", State.COMPLETE, State.IDLE,
+                CircularProgressButton.SUCCESS_STATE_PROGRESS, CircularProgressButton.IDLE_STATE_PROGRESS);
+    }
+
+    @Test
+    public void errorToIdle() throws IOException {
+        assertWithinBaseline("ERROR_TO_IDLE", State.ERROR, State.IDLE,
+                CircularProgressButton.ERROR_STATE_PROGRESS, CircularProgressButton.IDLE_STATE_PROGRESS);
+    }
+
+    private void assertWithinBaseline(String name, State from, State to, int fromProgress, int toProgress)
+            throws IOException {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            runTransition(to, fromProgress, toProgress);
+        }
+        long allocated = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            allocated = Math.min(allocated, runTransition(to, fromProgress, toProgress));
+        }
+
+        ProgressButtonMetrics.Snapshot snapshot = mMetrics.snapshot();
+        long runs = WARM_UP_ROUNDS + ROUNDS;
+        long[] measured = {
+                snapshot.getMorphDrawCount(from, to) / runs,
+                snapshot.getMorphInvalidateCount(from, to) / runs,
+                snapshot.getMorphLayoutRequestCount(from, to) / runs,
+                allocated
+        };
+        long[] baseline = readBaseline().get(name);
+        assertNotNull("no baseline for " + name, baseline);
+
+        String message = name + " measured " + format(measured) + ", baseline " + format(baseline)
+                + " (draws, invalidations, layout requests, allocated bytes)";
+        for (int i = 0; i < measured.length; i++) {
+            assertTrue(message, measured[i] <= baseline[i]);
+        }
+    }
+
+    /**
+     * Jumps to the start state and draws it, then requests the transition and draws frames until it has settled.
+     * Messages are only built on failure, so that the test itself does not allocate per frame.
+     *
+     * @return the bytes allocated from requesting the transition until it has settled
+     */
+    private long runTransition(State to, int fromProgress, int toProgress) {
+        mButton.jumpToProgress(fromProgress);
+        // the jump refreshes the drawable state, which the framework would otherwise create on a later draw
+        mButton.getDrawableState();
+        drawFrame();
+
+        long start = mCounter.getAllocatedBytes();
+        mButton.setProgress(toProgress);
+        int frames = 0;
+        while (mButton.getState() != to) {
+            if (frames++ == MAX_FRAMES) {
+                fail("transition to " + to + " did not settle");
+            }
+            drawFrame();
+        }
+        drawFrame();
+        return Math.max(0, mCounter.getAllocatedBytes() - start);
+    }
+
+    private void drawFrame() {
+        mClock.step();
+        TestButtons.draw(mButton, mCanvas);
+    }
+
+    private static String format(long[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (long value : values) {
+            builder.append(builder.length() == 0 ? "" : " ").append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Lines of a transition name followed by its four counts; empty lines and lines starting with # are skipped.
+     */
+    private Map<String, long[]> readBaseline() throws IOException {
+        InputStream in = getClass().getResourceAsStream(BASELINE);
+        assertNotNull("missing " + BASELINE, in);
+        Map<String, long[]> baseline = new HashMap<String, long[]>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                long[] values = new long[fields.length - 1];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Long.parseLong(fields[i + 1]);
+                }
+                baseline.put(fields[0], values);
+            }
+        } finally {
+            reader.close();
+        }
+        return baseline;
+    }
+}
@@ -36,6 +36,9 @@ public class MainActivity extends ListActivity {
             case 4:
                 Sample5Activity.startThisActivity(this);
                 break;
+            case 5:
+                Sample6Activity.startThisActivity(this);
+                break;
         }
     }
 }
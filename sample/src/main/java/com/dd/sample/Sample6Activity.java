@@ -0,0 +1,69 @@
+package com.dd.sample;
+
+import com.dd.CircularProgressButton;
+
+import android.app.ActionBar;
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * Inflation Benchmark Sample
+ */
+public class Sample6Activity extends Activity {
+
+    private static final int BUTTON_COUNT = 200;
+
+    public static void startThisActivity(Activity activity) {
+        activity.startActivity(new Intent(activity, Sample6Activity.class));
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.ac_sample_6);
+
+        ActionBar actionBar = getActionBar();
+        if(actionBar != null) {
+            actionBar.setTitle(R.string.InflationBenchmarkSample);
+        }
+
+        final TextView result = (TextView) findViewById(R.id.benchmarkResult);
+        final ViewGroup container = (ViewGroup) findViewById(R.id.benchmarkContainer);
+        final CircularProgressButton circularButton1 = (CircularProgressButton) findViewById(R.id.circularButton1);
+        circularButton1.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                result.setText(runBenchmark(container));
+            }
+        });
+    }
+
+    private String runBenchmark(ViewGroup container) {
+        LayoutInflater inflater = LayoutInflater.from(this);
+        View[] buttons = new View[BUTTON_COUNT];
+
+        long memoryBefore = getUsedMemory();
+        long start = System.nanoTime();
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            buttons[i] = inflater.inflate(R.layout.ac_sample_6_item, container, false);
+        }
+        long duration = System.nanoTime() - start;
+        long memoryAfter = getUsedMemory();
+
+        float timePerButton = duration / 1000f / BUTTON_COUNT;
+        long memoryPerButton = (memoryAfter - memoryBefore) / buttons.length;
+
+        return getString(R.string.InflationBenchmarkResult, BUTTON_COUNT, timePerButton, memoryPerButton);
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}